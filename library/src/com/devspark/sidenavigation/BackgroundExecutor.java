@@ -0,0 +1,57 @@
+package com.devspark.sidenavigation;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+/**
+ * Single background thread used by the library to prepare drawer content off the UI thread.
+ */
+public class BackgroundExecutor {
+    private static ExecutorService executor;
+    private static Handler mainHandler;
+
+    private BackgroundExecutor() {
+    }
+
+    /**
+     * Runs the task on the background thread.
+     *
+     * @param task task to be run
+     */
+    public static synchronized void execute(Runnable task) {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "SideNavigation background");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        executor.execute(task);
+    }
+
+    /**
+     * Posts the task to the UI thread.
+     *
+     * @param task task to be run
+     */
+    public static synchronized void postToMainThread(Runnable task) {
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        mainHandler.post(task);
+    }
+}
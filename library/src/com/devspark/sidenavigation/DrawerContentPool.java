@@ -0,0 +1,132 @@
+package com.devspark.sidenavigation;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Process-wide pool of drawer content views, allowing the same navigation layout to be reused by
+ * {@link SideNavigationView} instances of different Activities instead of being inflated for every
+ * screen.<br>
+ * The pool keeps a spare view of every obtained layout: when a view is taken, another one is
+ * inflated as soon as the UI thread is idle, so the next screen gets a ready view even if the
+ * previous one is still attached (e.g. in the back stack).<br>
+ * Pooled views are inflated with the application context (so they are themed with the application
+ * theme). Listeners set on them by the previous owner have to be removed in
+ * {@link SideNavigationView.OnContentViewReleasedListener}, otherwise the pool keeps the previous
+ * Activity alive.
+ *
+ * All methods have to be called on the UI thread.
+ */
+public class DrawerContentPool {
+    private static final String LOG_TAG = DrawerContentPool.class.getSimpleName();
+
+    private static DrawerContentPool instance;
+
+    private SparseArray<View> views = new SparseArray<View>();
+    private SparseBooleanArray pendingRefills = new SparseBooleanArray();
+    private int clearCount = 0;
+
+    private DrawerContentPool() {
+    }
+
+    /**
+     * Returns the process-wide instance of the pool.
+     *
+     * @return pool instance
+     */
+    public static DrawerContentPool getInstance() {
+        if (instance == null) {
+            instance = new DrawerContentPool();
+        }
+        return instance;
+    }
+
+    /**
+     * Returns pooled content view for the given layout, or inflates a new one if there is none
+     * available. Returned view is removed from the pool until it is recycled, and a spare one is
+     * inflated when the UI thread becomes idle.
+     *
+     * @param context any context, only its application context is used
+     * @param layoutResId layout ID of the content
+     * @return content view without parent
+     */
+    public View obtain(Context context, int layoutResId) {
+        Context appContext = context.getApplicationContext();
+        View view = views.get(layoutResId);
+        if (view != null) {
+            views.remove(layoutResId);
+            if (SideNavigationView.DEBUG_LOG) {
+                Log.d(LOG_TAG, "reusing content " + layoutResId);
+            }
+        } else {
+            view = inflate(appContext, layoutResId);
+        }
+        scheduleRefill(appContext, layoutResId);
+        return view;
+    }
+
+    /**
+     * Puts the content view back to the pool, so it can be reused. The view is detached from its
+     * parent. If the pool already has a spare view of the layout, the recycled view is dropped.
+     *
+     * @param layoutResId layout ID, that was used to obtain the view
+     * @param view content view
+     */
+    public void recycle(int layoutResId, View view) {
+        if (view.getParent() instanceof ViewGroup) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+        if (views.get(layoutResId) == null) {
+            views.put(layoutResId, view);
+        }
+    }
+
+    /**
+     * Removes all pooled views. Spare views scheduled before this call are not inflated.
+     */
+    public void clear() {
+        views.clear();
+        pendingRefills.clear();
+        clearCount++;
+    }
+
+    private void scheduleRefill(final Context appContext, final int layoutResId) {
+        if (pendingRefills.get(layoutResId)) {
+            return;
+        }
+        pendingRefills.put(layoutResId, true);
+        final int scheduledClearCount = clearCount;
+        Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler() {
+            @Override
+            public boolean queueIdle() {
+                if (scheduledClearCount != clearCount) {
+                    // pool was cleared on memory pressure in the meantime
+                    return false;
+                }
+                pendingRefills.delete(layoutResId);
+                if (views.get(layoutResId) == null) {
+                    if (SideNavigationView.DEBUG_LOG) {
+                        Log.d(LOG_TAG, "inflating spare content " + layoutResId);
+                    }
+                    views.put(layoutResId, inflate(appContext, layoutResId));
+                }
+                return false;
+            }
+        });
+    }
+
+    private static View inflate(Context appContext, int layoutResId) {
+        LayoutInflater inflater = LayoutInflater.from(appContext);
+        if (inflater == null) {
+            throw new IllegalStateException("Unable to get valid inflater!");
+        }
+        return inflater.inflate(layoutResId, null);
+    }
+}
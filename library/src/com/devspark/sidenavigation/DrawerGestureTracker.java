@@ -0,0 +1,409 @@
+package com.devspark.sidenavigation;
+
+/**
+ * Touch state machine of the drawer gestures: dragging, the active pointer, clicks on the handle
+ * and the release velocity. It doesn't depend on Android classes, {@link SideNavigationView} feeds
+ * it with its touch events and applies the results through {@link Host}, so the machine can be
+ * driven with generated gestures on a plain JVM as well.
+ *
+ * Guarantees kept for any sequence of events:
+ * <ul>
+ * <li>the drawer is moved only within [-contentWidth, 0],</li>
+ * <li>a gesture ends on ACTION_UP or ACTION_CANCEL, or is dropped on the next ACTION_DOWN,</li>
+ * <li>every event takes constant memory, and time proportional to the number of its batched
+ * samples.</li>
+ * </ul>
+ */
+class DrawerGestureTracker {
+    static final int INVALID_POINTER_ID = -1;
+
+    /** Minimal release velocity in pixels per millisecond. */
+    static final float MIN_VELOCITY = 0.8f;
+
+    /**
+     * Maximum number of samples used for the velocity, enough for the whole velocity window of
+     * touch input reported at 240 Hz.
+     */
+    static final int VELOCITY_SAMPLES = 32;
+
+    /** Only samples from this time before the last one are used for the velocity. */
+    private static final long VELOCITY_WINDOW_MS = 100;
+
+    /**
+     * Pointers of the touch event, see the methods of {@code MotionEvent} with the same names.
+     */
+    interface Pointers {
+        public int getPointerCount();
+
+        public int getPointerId(int pointerIndex);
+
+        public int findPointerIndex(int pointerId);
+
+        public int getActionIndex();
+
+        public float getX(int pointerIndex);
+
+        public float getY(int pointerIndex);
+
+        public long getEventTime();
+
+        public int getHistorySize();
+
+        public float getHistoricalX(int pointerIndex, int pos);
+
+        public long getHistoricalEventTime(int pos);
+    }
+
+    /**
+     * The drawer moved by the gestures.
+     */
+    interface Host {
+        public float getTransX();
+
+        public int getContentWidth();
+
+        public boolean isHandleHit(float x, float y);
+
+        public void setTransX(float transX);
+
+        /**
+         * Called on every move of the gesture. The host should show the drawer and call
+         * {@link DrawerGestureTracker#applyPendingMove()}, at latest before the next frame.
+         *
+         * @param first true for the first move of the gesture
+         */
+        public void onDragMove(boolean first);
+
+        public void onHandleClick();
+
+        /**
+         * Called when the gesture moving the drawer ends.
+         *
+         * @param open true if the drawer should be opened, false if closed
+         * @param velocityX velocity of the release in pixels per millisecond
+         */
+        public void onRelease(boolean open, float velocityX);
+    }
+
+    private final Host host;
+    private final int touchSlop;
+    private final int clickSlop;
+
+    private boolean dragging = false;
+    private boolean dragPending = false;
+    private boolean moved = false;
+    private int activePointerId = INVALID_POINTER_ID;
+    private float lastTouchX;
+    private float lastTouchY;
+    private float pendingDx = 0f;
+    private float handleDownX = -1f;
+    private float handleDownY = -1f;
+
+    private final long[] sampleTimes = new long[VELOCITY_SAMPLES];
+    private final float[] sampleXs = new float[VELOCITY_SAMPLES];
+    private int sampleStart = 0;
+    private int sampleCount = 0;
+
+    /**
+     * @param host drawer moved by the gestures
+     * @param touchSlop distance in pixels a deferred drag has to move before it is classified
+     * @param clickSlop maximal distance in pixels between press and release of the handle click
+     */
+    DrawerGestureTracker(Host host, int touchSlop, int clickSlop) {
+        this.host = host;
+        this.touchSlop = touchSlop;
+        this.clickSlop = clickSlop;
+    }
+
+    /**
+     * @return true if a gesture belonging to the drawer is in progress
+     */
+    boolean isDragging() {
+        return dragging;
+    }
+
+    /**
+     * @return true if the gesture waits for crossing the touch slop before moving the drawer
+     */
+    boolean isDragPending() {
+        return dragPending;
+    }
+
+    /**
+     * @return ID of the pointer moving the drawer, or {@link #INVALID_POINTER_ID}
+     */
+    int getActivePointerId() {
+        return activePointerId;
+    }
+
+    /**
+     * Handles ACTION_DOWN.
+     *
+     * @param ev pointers of the event
+     * @param claimed true if the gesture belongs to the drawer
+     * @param deferDrag true if the drawer should not move before the gesture crosses the touch
+     *            slop horizontally
+     * @return true if the event was consumed
+     */
+    boolean onDown(Pointers ev, boolean claimed, boolean deferDrag) {
+        // drop the state of previous gesture, if it didn't finish properly
+        reset();
+        final int pointerIndex = ev.getActionIndex();
+        final float x = ev.getX(pointerIndex);
+        final float y = ev.getY(pointerIndex);
+        if (host.isHandleHit(x, y)) {
+            handleDownX = x;
+            handleDownY = y;
+        }
+        if (!claimed) {
+            return false;
+        }
+        dragging = true;
+        dragPending = deferDrag;
+        // Remember where we started (for dragging)
+        lastTouchX = x;
+        lastTouchY = y;
+        activePointerId = ev.getPointerId(pointerIndex);
+        addVelocitySample(ev.getEventTime(), x);
+        return true;
+    }
+
+    /**
+     * Handles ACTION_MOVE.
+     *
+     * @param ev pointers of the event
+     * @return true if the event was consumed
+     */
+    boolean onMove(Pointers ev) {
+        if (!dragging) {
+            return false;
+        }
+        // Find the index of the active pointer and fetch its position
+        final int pointerIndex = ev.findPointerIndex(activePointerId);
+        if (pointerIndex < 0) {
+            // active pointer is unknown, wait for the end of the gesture
+            return true;
+        }
+        // samples batched into the event are used for the velocity only, the last sample already
+        // contains their movement
+        final int historySize = ev.getHistorySize();
+        for (int i = 0; i < historySize; i++) {
+            addVelocitySample(ev.getHistoricalEventTime(i), ev.getHistoricalX(pointerIndex, i));
+        }
+        final float x = ev.getX(pointerIndex);
+        final float y = ev.getY(pointerIndex);
+        addVelocitySample(ev.getEventTime(), x);
+
+        // Calculate the distance moved
+        final float dx = x - lastTouchX;
+        final float dy = y - lastTouchY;
+        if (dragPending) {
+            if (Math.abs(dx) > touchSlop || Math.abs(dy) > touchSlop) {
+                if (Math.abs(dx) > Math.abs(dy)) {
+                    // horizontal gesture, start dragging from this point
+                    dragPending = false;
+                    lastTouchX = x;
+                    lastTouchY = y;
+                } else {
+                    // vertical gesture, it doesn't move the drawer
+                    reset();
+                }
+            }
+            return true;
+        }
+        pendingDx += dx;
+        // Remember this touch position for the next move event
+        lastTouchX = x;
+        lastTouchY = y;
+        boolean first = !moved;
+        moved = true;
+        host.onDragMove(first);
+        return true;
+    }
+
+    /**
+     * Handles ACTION_UP.
+     *
+     * @param ev pointers of the event
+     * @return true if the event was consumed
+     */
+    boolean onUp(Pointers ev) {
+        if (!dragging) {
+            reset();
+            return false;
+        }
+        if (dragPending) {
+            // the drawer wasn't moved at all
+            reset();
+            return true;
+        }
+        applyPendingMove();
+        int pointerIndex = ev.findPointerIndex(activePointerId);
+        final boolean activePointerUp = pointerIndex >= 0;
+        if (!activePointerUp) {
+            pointerIndex = ev.getActionIndex();
+        }
+        final float x = ev.getX(pointerIndex);
+        final float y = ev.getY(pointerIndex);
+
+        boolean handleClicked = false;
+        if (handleDownX >= 0 && handleDownY >= 0 && host.isHandleHit(x, y)) {
+            double clickDistance = Math.sqrt(Math.pow(x - handleDownX, 2) + Math.pow(y - handleDownY, 2));
+            handleClicked = clickDistance < clickSlop;
+        }
+        if (activePointerUp) {
+            addVelocitySample(ev.getEventTime(), x);
+        }
+        float velocityX = computeVelocity();
+        boolean wasMoved = moved;
+        // the gesture is over before the host reacts on it
+        reset();
+
+        if (handleClicked) {
+            host.onHandleClick();
+        } else if (!wasMoved && host.getTransX() <= -host.getContentWidth()) {
+            // tap on the edge of the closed drawer, there is nothing to settle
+        } else {
+            if (Math.abs(velocityX) < MIN_VELOCITY) {
+                velocityX = velocityX > 0 ? MIN_VELOCITY : -MIN_VELOCITY;
+            }
+            host.onRelease(velocityX > 0, velocityX);
+        }
+        return true;
+    }
+
+    /**
+     * Handles ACTION_CANCEL.
+     *
+     * @return true if the event was consumed
+     */
+    boolean onCancel() {
+        boolean settle = dragging && !dragPending && moved;
+        if (settle) {
+            applyPendingMove();
+        }
+        reset();
+        if (settle) {
+            // settle the drawer, so it is not left half-opened
+            int contentWidth = host.getContentWidth();
+            host.onRelease(contentWidth + host.getTransX() >= contentWidth / 2f, 1f);
+        }
+        return true;
+    }
+
+    /**
+     * Handles ACTION_POINTER_UP.
+     *
+     * @param ev pointers of the event
+     * @return true if the event was consumed
+     */
+    boolean onPointerUp(Pointers ev) {
+        if (!dragging || ev.getPointerCount() < 2) {
+            return false;
+        }
+        final int pointerIndex = ev.getActionIndex();
+        if (ev.getPointerId(pointerIndex) != activePointerId) {
+            return false;
+        }
+        // This was our active pointer going up. Choose a new
+        // active pointer and adjust accordingly.
+        final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
+        lastTouchX = ev.getX(newPointerIndex);
+        lastTouchY = ev.getY(newPointerIndex);
+        activePointerId = ev.getPointerId(newPointerIndex);
+        // velocity of the previous pointer doesn't apply to the new one
+        clearVelocity();
+        addVelocitySample(ev.getEventTime(), lastTouchX);
+        return true;
+    }
+
+    /**
+     * Moves the drawer by the distance accumulated since the last call, keeping it in range
+     * [-contentWidth, 0].
+     */
+    void applyPendingMove() {
+        float transX = host.getTransX();
+        float newTransX = Math.max(-host.getContentWidth(), Math.min(0f, transX + pendingDx));
+        pendingDx = 0f;
+        if (newTransX != transX) {
+            host.setTransX(newTransX);
+        }
+    }
+
+    /**
+     * Drops the gesture in progress without notifying the host.
+     */
+    void reset() {
+        dragging = false;
+        dragPending = false;
+        moved = false;
+        activePointerId = INVALID_POINTER_ID;
+        pendingDx = 0f;
+        handleDownX = -1f;
+        handleDownY = -1f;
+        clearVelocity();
+    }
+
+    private void clearVelocity() {
+        sampleStart = 0;
+        sampleCount = 0;
+    }
+
+    private void addVelocitySample(long time, float x) {
+        int index;
+        if (sampleCount < VELOCITY_SAMPLES) {
+            index = (sampleStart + sampleCount) % VELOCITY_SAMPLES;
+            sampleCount++;
+        } else {
+            // drop the oldest sample
+            index = sampleStart;
+            sampleStart = (sampleStart + 1) % VELOCITY_SAMPLES;
+        }
+        sampleTimes[index] = time;
+        sampleXs[index] = x;
+    }
+
+    /**
+     * Computes velocity as the slope of the least squares line fitted to the recent samples.
+     *
+     * @return velocity in pixels per millisecond
+     */
+    private float computeVelocity() {
+        if (sampleCount < 2) {
+            return 0f;
+        }
+        long lastTime = sampleTimes[(sampleStart + sampleCount - 1) % VELOCITY_SAMPLES];
+        int count = 0;
+        double sumT = 0;
+        double sumX = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            int index = (sampleStart + i) % VELOCITY_SAMPLES;
+            long age = lastTime - sampleTimes[index];
+            if (age >= 0 && age <= VELOCITY_WINDOW_MS) {
+                sumT -= age;
+                sumX += sampleXs[index];
+                count++;
+            }
+        }
+        if (count < 2) {
+            return 0f;
+        }
+        double meanT = sumT / count;
+        double meanX = sumX / count;
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            int index = (sampleStart + i) % VELOCITY_SAMPLES;
+            long age = lastTime - sampleTimes[index];
+            if (age >= 0 && age <= VELOCITY_WINDOW_MS) {
+                double t = -age - meanT;
+                covariance += t * (sampleXs[index] - meanX);
+                variance += t * t;
+            }
+        }
+        if (variance == 0) {
+            return 0f;
+        }
+        return (float) (covariance / variance);
+    }
+}
@@ -0,0 +1,76 @@
+package com.devspark.sidenavigation;
+
+/**
+ * Snapshot of the time spent on the startup phases of {@link SideNavigationView}, recorded when
+ * {@link SideNavigationView#setStartupTimingEnabled(boolean)} is enabled. All values are measured
+ * with {@link System#nanoTime()} and given in nanoseconds; phases that didn't happen are 0.
+ */
+public class DrawerStartupTimings {
+    long initViewNanos;
+    long dimensionsNanos;
+    long contentViewNanos;
+    long firstMeasureNanos;
+    long firstLayoutNanos;
+    long firstDrawNanos;
+    long totalNanos;
+
+    DrawerStartupTimings() {
+    }
+
+    /**
+     * @return time of inflating the drawer layout in the constructor
+     */
+    public long getInitViewNanos() {
+        return initViewNanos;
+    }
+
+    /**
+     * @return time of resolving the dimensions in the constructor
+     */
+    public long getDimensionsNanos() {
+        return dimensionsNanos;
+    }
+
+    /**
+     * @return time of inflating and attaching the drawer content in {@code setContentView()} or
+     *         {@code setMenuItems()}
+     */
+    public long getContentViewNanos() {
+        return contentViewNanos;
+    }
+
+    /**
+     * @return time of the first measure of the drawer layout
+     */
+    public long getFirstMeasureNanos() {
+        return firstMeasureNanos;
+    }
+
+    /**
+     * @return time of the first layout of the drawer layout
+     */
+    public long getFirstLayoutNanos() {
+        return firstLayoutNanos;
+    }
+
+    /**
+     * @return time of the first draw of the drawer layout
+     */
+    public long getFirstDrawNanos() {
+        return firstDrawNanos;
+    }
+
+    /**
+     * @return time from the start of the constructor to the end of the first draw of the drawer
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DrawerStartupTimings [initView=" + initViewNanos + ", dimensions=" + dimensionsNanos + ", contentView="
+                        + contentViewNanos + ", firstMeasure=" + firstMeasureNanos + ", firstLayout=" + firstLayoutNanos
+                        + ", firstDraw=" + firstDrawNanos + ", total=" + totalNanos + "]";
+    }
+}
@@ -0,0 +1,142 @@
+package com.devspark.sidenavigation;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.support.v4.util.LruCache;
+import android.util.Log;
+import android.widget.ImageView;
+
+/**
+ * Process-wide cache of the drawer item icons. Icons are decoded on the background thread,
+ * downsampled to the size of the item icon and kept in a cache limited by the size of the bitmaps
+ * in bytes. Until the icon is decoded, the view shows a transparent placeholder.
+ *
+ * All methods have to be called on the UI thread.
+ */
+public class IconCache {
+    private static final String LOG_TAG = IconCache.class.getSimpleName();
+
+    /** Part of the maximum heap size used for the icons. */
+    private static final int MEMORY_FRACTION = 32;
+
+    private static final int MIN_CACHE_SIZE = 1024 * 1024;
+
+    private static IconCache instance;
+
+    private final Resources resources;
+    private final LruCache<String, Bitmap> bitmaps;
+
+    private IconCache(Resources resources, int maxBytes) {
+        this.resources = resources;
+        this.bitmaps = new LruCache<String, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+    }
+
+    /**
+     * Returns the process-wide instance of the cache.
+     *
+     * @param context any context, only its application context is used
+     * @return cache instance
+     */
+    public static IconCache getInstance(Context context) {
+        if (instance == null) {
+            int maxBytes = (int) Math.max(MIN_CACHE_SIZE, Runtime.getRuntime().maxMemory() / MEMORY_FRACTION);
+            instance = new IconCache(context.getApplicationContext().getResources(), maxBytes);
+        }
+        return instance;
+    }
+
+    /**
+     * Sets the icon to the view. Cached bitmap is set immediately, otherwise the view gets a
+     * placeholder and the icon is decoded in the background.
+     *
+     * @param view target view
+     * @param resId drawable resource ID of the icon
+     * @param size size of the icon in pixels
+     */
+    public void load(final ImageView view, final int resId, final int size) {
+        final String key = resId + ":" + size;
+        view.setTag(R.id.side_navigation_icon_key, key);
+        Bitmap bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            view.setImageBitmap(bitmap);
+            return;
+        }
+        view.setImageDrawable(new ColorDrawable(Color.TRANSPARENT));
+        BackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap decoded = decode(resId, size);
+                if (decoded != null) {
+                    bitmaps.put(key, decoded);
+                }
+                BackgroundExecutor.postToMainThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!key.equals(view.getTag(R.id.side_navigation_icon_key))) {
+                            // view got another icon in the meantime
+                            return;
+                        }
+                        if (decoded != null) {
+                            view.setImageBitmap(decoded);
+                        } else {
+                            // not a bitmap (e.g. XML drawable), let the view load it
+                            view.setImageResource(resId);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Removes all cached icons.
+     */
+    public void clear() {
+        bitmaps.evictAll();
+    }
+
+    private Bitmap decode(int resId, int size) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inScaled = false;
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeResource(resources, resId, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+        int sampleSize = 1;
+        while (options.outWidth / (sampleSize * 2) >= size && options.outHeight / (sampleSize * 2) >= size) {
+            sampleSize *= 2;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        Bitmap bitmap;
+        try {
+            bitmap = BitmapFactory.decodeResource(resources, resId, options);
+        } catch (OutOfMemoryError e) {
+            Log.w(LOG_TAG, "Unable to decode icon " + resId, e);
+            return null;
+        }
+        if (bitmap == null) {
+            return null;
+        }
+        float scale = Math.min((float) size / bitmap.getWidth(), (float) size / bitmap.getHeight());
+        if (scale < 1f) {
+            Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                            Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+            if (scaled != bitmap) {
+                bitmap.recycle();
+            }
+            bitmap = scaled;
+        }
+        return bitmap;
+    }
+}
@@ -0,0 +1,69 @@
+package com.devspark.sidenavigation;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.widget.FrameLayout;
+
+/**
+ * Container of the content under {@link SideNavigationView}. In the deferred edge interception
+ * mode the drawer watches touch events of this container instead of claiming gestures starting at
+ * the edge of the screen: taps and vertical drags reach the content, and only a gesture crossing
+ * the touch slop horizontally is taken over to move the drawer.
+ *
+ * @see SideNavigationView#setDeferredEdgeInterception(boolean)
+ */
+public class SideNavigationContentLayout extends FrameLayout {
+    private SideNavigationView sideNavigationView;
+
+    public SideNavigationContentLayout(Context context) {
+        super(context);
+    }
+
+    public SideNavigationContentLayout(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public SideNavigationContentLayout(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+    }
+
+    /**
+     * Sets the drawer watching touch events of this content.
+     *
+     * @param view drawer over this content, or null to stop watching
+     */
+    public void setSideNavigationView(SideNavigationView view) {
+        if (sideNavigationView != null) {
+            sideNavigationView.setWatchedContent(null);
+        }
+        sideNavigationView = view;
+        if (view != null) {
+            view.setWatchedContent(this);
+        }
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent ev) {
+        if (sideNavigationView != null && sideNavigationView.onInterceptContentTouchEvent(this, ev)) {
+            return true;
+        }
+        return super.onInterceptTouchEvent(ev);
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent ev) {
+        // keeps the gesture if the content doesn't consume it, so the drawer can watch it
+        boolean watched = sideNavigationView != null && sideNavigationView.onContentTouchEvent(this, ev);
+        return super.onTouchEvent(ev) || watched;
+    }
+
+    @Override
+    public void requestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if (disallowIntercept && sideNavigationView != null) {
+            // the content handles the gesture itself, the drawer won't see the rest of it
+            sideNavigationView.cancelContentTouchEvents();
+        }
+        super.requestDisallowInterceptTouchEvent(disallowIntercept);
+    }
+}
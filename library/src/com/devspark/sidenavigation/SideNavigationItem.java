@@ -0,0 +1,44 @@
+package com.devspark.sidenavigation;
+
+/**
+ * Item of the side navigation menu, see {@link SideNavigationView#setMenuItems(java.util.List)}.
+ */
+public class SideNavigationItem {
+    private int id;
+    private CharSequence text;
+    private int icon;
+
+    /**
+     * Constructor of {@link SideNavigationItem}.
+     *
+     * @param id identifier of the item
+     * @param text label of the item
+     * @param icon drawable resource ID of the icon, or 0 if the item has no icon
+     */
+    public SideNavigationItem(int id, CharSequence text, int icon) {
+        this.id = id;
+        this.text = text;
+        this.icon = icon;
+    }
+
+    /**
+     * @return identifier of the item
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return label of the item
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * @return drawable resource ID of the icon, or 0 if the item has no icon
+     */
+    public int getIcon() {
+        return icon;
+    }
+}
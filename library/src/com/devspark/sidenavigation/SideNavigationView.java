@@ -1,20 +1,37 @@
 package com.devspark.sidenavigation;
 
+import java.util.List;
+
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.Color;
 import android.graphics.Paint;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
+import android.util.DisplayMetrics;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
-import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.animation.DecelerateInterpolator;
+import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
+import android.widget.ScrollView;
 
+import com.devspark.sidenavigation.views.DrawerAnimator;
+import com.devspark.sidenavigation.views.ItemLabelView;
 import com.devspark.sidenavigation.views.TransformableDrawerLayout;
 import com.devspark.sidenavigation.views.TransformableDrawerLayout.AnimationListener;
+import com.devspark.sidenavigation.views.TransformableDrawerLayout.FirstFrameTimingListener;
 import com.devspark.sidenavigation.views.TransformableDrawerLayout.OpenningProgressListener;
 import com.nineoldandroids.view.ViewHelper;
 
@@ -34,45 +51,222 @@ public class SideNavigationView extends LinearLayout {
 
     private static final String LOG_TAG = SideNavigationView.class.getSimpleName();
 
-    private static final int INVALID_POINTER_ID = -1;
+    private static final int REQUEST_NONE = 0;
+    private static final int REQUEST_SHOW = 1;
+    private static final int REQUEST_HIDE = 2;
+    private static final int REQUEST_TOGGLE = 3;
+    private static final int REQUEST_FRACTION = 4;
+
+    /**
+     * Value of View.IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS (API 19), missing in the
+     * support library.
+     */
+    private static final int IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS = 0x00000004;
 
-    private static final float MIN_VELOCITY = 0.8f;
+    private static boolean startupTimingEnabled = false;
 
     private int activeXDiff = 30;
 
     private TransformableDrawerLayout navigationMenu;
     private LinearLayout menuContent;
     private View menuContentView;
+    private int menuContentResId;
+    private boolean menuContentShared = false;
+    private boolean releaseContentOnTrim = false;
+    private boolean menuContentReleased = false;
+    private OnContentViewCreatedListener contentViewCreatedListener;
+    private OnContentViewReleasedListener contentViewReleasedListener;
+    private OnMenuItemClickListener menuItemClickListener;
+
+    private long startupTimeNanos;
+    private DrawerStartupTimings startupTimings;
+    private boolean startupTimingsReady = false;
+    private boolean startupTimingsPending = false;
+    private OnStartupTimingsListener startupTimingsListener;
+    private ComponentCallbacks2 trimMemoryCallbacks;
     private View outsideView;
     private ImageView ivHandle;
 
     private Mode mMode = Mode.LEFT;
 
-    VelocityTracker velocityTracker;
+    private DrawerGestureTracker gestureTracker;
+    private MotionEventPointers touchPointers = new MotionEventPointers();
 
     private float velocityX;
 
-    float mLastTouchX = 0f;
-    float mLastTouchY = 0f;
-
-    float mHandleClickedX = -1f;
-    float mHandleClickedY = -1f;
-
-    int mActivePointerId = 0;
-
-    float mPosX = 0f;
-    float mPosY = 0f;
-
-    boolean isDragging = false;
+    private DockMode dockMode = DockMode.OVERLAY;
+    private boolean docked = false;
+    private int dockMinWidth;
+    private OnDockChangeListener dockChangeListener;
+    private boolean reportedDocked = false;
+    private int reportedDrawerWidth = 0;
+    private boolean dockChangePending = false;
+
+    private boolean deferredEdgeInterception = false;
+    private int touchSlop;
+    private long claimedDownTime = -1;
+    private boolean downClaimed = false;
+    private boolean downOnEdge = false;
+    private View watchedContent;
+    private boolean contentGesture = false;
+    private long contentDownTime = -1;
+    private float contentOffsetX;
+    private float contentOffsetY;
+    private int[] locationBuffer = new int[2];
+
+    private boolean layoutUpdatePending = false;
+
+    private boolean propertyAnimationEnabled = true;
+    private DrawerAnimator.Clock animationClock = DrawerAnimator.ANIMATION_CLOCK;
+
+    private Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Object requestLock = new Object();
+    private int pendingRequest = REQUEST_NONE;
+    private float pendingFraction = 0f;
+    private boolean requestScheduled = false;
+    private volatile boolean attachedToWindow = false;
+
+    private DrawerState drawerState = DrawerState.CLOSED;
+    private float occludedFraction = 0f;
+    private OnDrawerStateChangeListener drawerStateListener;
 
     Paint paint = new Paint();
 
+    /**
+     * Number of distinct alpha levels of the outside view, that are actually visible. Changes of
+     * the progress smaller than one level don't invalidate the outside view.
+     */
+    private int outsideAlphaLevels = 255;
+
     private OpenningProgressListener openningListener = new OpenningProgressListener() {
 
         @Override
         public void onProgress(float progress) {
             if (outsideView != null && outsideView.isShown()) {
-                ViewHelper.setAlpha(outsideView, progress);
+                float alpha = Math.round(progress * outsideAlphaLevels) / (float) outsideAlphaLevels;
+                if (alpha != ViewHelper.getAlpha(outsideView)) {
+                    ViewHelper.setAlpha(outsideView, alpha);
+                }
+            }
+            updateOccludedFraction();
+        }
+    };
+
+    /**
+     * Notifies the dock listener after the layout pass, since the listener is likely to change the
+     * layout.
+     */
+    private Runnable dockChangeNotifier = new Runnable() {
+        @Override
+        public void run() {
+            dockChangePending = false;
+            if (dockChangeListener != null) {
+                dockChangeListener.onDockChanged(reportedDocked, reportedDrawerWidth);
+            }
+        }
+    };
+
+    /**
+     * Applies the move deltas accumulated since the last frame. Posted at most once per frame, so
+     * the drawer is clamped and invalidated once regardless of how many move events arrived.
+     */
+    private Runnable layoutUpdater = new Runnable() {
+        @Override
+        public void run() {
+            layoutUpdatePending = false;
+            updateLayout();
+        }
+    };
+
+    /**
+     * Executes the show/hide request coalesced from all the requests made since it was posted.
+     */
+    private Runnable requestDispatcher = new Runnable() {
+        @Override
+        public void run() {
+            int request;
+            float fraction;
+            synchronized (requestLock) {
+                requestScheduled = false;
+                if (!attachedToWindow) {
+                    // kept until the view is attached, see onAttachedToWindow()
+                    return;
+                }
+                request = pendingRequest;
+                fraction = pendingFraction;
+                pendingRequest = REQUEST_NONE;
+            }
+            switch (request) {
+                case REQUEST_SHOW:
+                    showMenu();
+                    break;
+                case REQUEST_HIDE:
+                    hideMenu();
+                    break;
+                case REQUEST_TOGGLE:
+                    toggleMenu();
+                    break;
+                case REQUEST_FRACTION:
+                    applyOpenFraction(fraction);
+                    break;
+            }
+        }
+    };
+
+    /**
+     * Applies the results of the gestures tracked by {@link DrawerGestureTracker} to the drawer.
+     */
+    private DrawerGestureTracker.Host gestureHost = new DrawerGestureTracker.Host() {
+
+        @Override
+        public float getTransX() {
+            return navigationMenu.getTransX();
+        }
+
+        @Override
+        public int getContentWidth() {
+            return navigationMenu.getContentWidth();
+        }
+
+        @Override
+        public boolean isHandleHit(float x, float y) {
+            return navigationMenu.getHandleRect().contains((int) x, (int) y);
+        }
+
+        @Override
+        public void setTransX(float transX) {
+            navigationMenu.setTransX(transX);
+            if (DEBUG_LOG) {
+                Log.v("translation", navigationMenu.getContentWidth() + " " + transX);
+            }
+        }
+
+        @Override
+        public void onDragMove(boolean first) {
+            if (first) {
+                // the drawer follows the finger from now on
+                navigationMenu.cancelAnimation();
+            }
+            if (isShown()) {
+                scheduleLayoutUpdate();
+            } else {
+                setDrawerVisible();
+            }
+            setDrawerState(DrawerState.DRAGGING);
+        }
+
+        @Override
+        public void onHandleClick() {
+            ivHandle.performClick();
+        }
+
+        @Override
+        public void onRelease(boolean open, float velocity) {
+            velocityX = velocity;
+            if (open) {
+                showMenuWithVelocity();
+            } else {
+                hideMenuWithVelocity();
             }
         }
     };
@@ -81,6 +275,140 @@ public class SideNavigationView extends LinearLayout {
         LEFT, RIGHT
     };
 
+    /**
+     * Modes of presenting the drawer.
+     */
+    public static enum DockMode {
+        /** Drawer slides over the content, default mode. */
+        OVERLAY,
+        /** Drawer is permanently visible next to the content. */
+        DOCKED,
+        /**
+         * Drawer is docked if the smallest width of the screen (as the {@code sw<N>dp} resource
+         * qualifier) is at least {@code side_navigation_dock_min_width}, otherwise it is an overlay.
+         * The decision doesn't depend on the orientation or on the space given by the parent.
+         */
+        AUTO
+    };
+
+    /**
+     * Interface definition for a callback to be invoked when the drawer is docked or undocked, so
+     * the content can be laid out next to it.
+     */
+    public interface OnDockChangeListener {
+        /**
+         * @param docked true if the drawer is docked
+         * @param drawerWidth width occupied by the docked drawer in pixels, 0 if not docked
+         */
+        public void onDockChanged(boolean docked, int drawerWidth);
+    }
+
+    /**
+     * States of the drawer reported to {@link OnDrawerStateChangeListener}.
+     */
+    public static enum DrawerState {
+        /** Drawer is completely hidden. */
+        CLOSED,
+        /** Drawer is being moved by the user or with {@link SideNavigationView#setOpenFraction(float)}. */
+        DRAGGING,
+        /** Drawer is animating towards opened or closed position. */
+        SETTLING,
+        /** Drawer is completely opened. */
+        OPENED
+    };
+
+    /**
+     * Interface allowing the listener to react on drawer covering the content under it, e.g. to
+     * pause expensive rendering while the drawer is opened. Callbacks are invoked only on changes.
+     */
+    public interface OnDrawerStateChangeListener {
+        /**
+         * Called when the drawer enters a new state.
+         *
+         * @param state new state of the drawer
+         */
+        public void onDrawerStateChanged(DrawerState state);
+
+        /**
+         * Called when the part of the view covered by the drawer changes.
+         *
+         * @param occludedFraction covered part of the view width, in range [0, 1]
+         */
+        public void onOcclusionChanged(float occludedFraction);
+    }
+
+    /**
+     * Interface allowing the listener to bind views of the drawer content, each time it is attached
+     * from the layout resource passed to {@link SideNavigationView#setContentView(int)} or
+     * {@link SideNavigationView#setSharedContentView(int)}.
+     */
+    public interface OnContentViewCreatedListener {
+        public void onContentViewCreated(View contentView);
+    }
+
+    /**
+     * Interface allowing the listener to unbind views of the drawer content, before the content
+     * attached from a layout resource is removed from the drawer: given back to
+     * {@link DrawerContentPool} or released on memory pressure. Listeners set on the shared
+     * content have to be removed here, since the pool outlives the Activity.
+     */
+    public interface OnContentViewReleasedListener {
+        public void onContentViewReleased(View contentView);
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when an item set with
+     * {@link SideNavigationView#setMenuItems(List)} is clicked.
+     */
+    public interface OnMenuItemClickListener {
+        public void onMenuItemClick(SideNavigationItem item);
+    }
+
+    /**
+     * Interface definition for a callback to be invoked when startup timings of the view are
+     * recorded, see {@link SideNavigationView#setStartupTimingEnabled(boolean)}.
+     */
+    public interface OnStartupTimingsListener {
+        public void onStartupTimings(DrawerStartupTimings timings);
+    }
+
+    private FirstFrameTimingListener firstFrameTimingListener = new FirstFrameTimingListener() {
+
+        @Override
+        public void onFirstMeasure(long durationNanos) {
+            startupTimings.firstMeasureNanos = durationNanos;
+        }
+
+        @Override
+        public void onFirstLayout(long durationNanos) {
+            startupTimings.firstLayoutNanos = durationNanos;
+        }
+
+        @Override
+        public void onFirstDraw(long durationNanos) {
+            startupTimings.firstDrawNanos = durationNanos;
+            startupTimings.totalNanos = System.nanoTime() - startupTimeNanos;
+            navigationMenu.setFirstFrameTimingListener(null);
+            // don't call the listener in the middle of drawing
+            startupTimingsPending = true;
+            post(startupTimingsNotifier);
+        }
+    };
+
+    /**
+     * Notifies the startup timings listener after the first draw of the drawer.
+     */
+    private Runnable startupTimingsNotifier = new Runnable() {
+        @Override
+        public void run() {
+            startupTimingsPending = false;
+            startupTimingsReady = true;
+            if (startupTimingsListener != null) {
+                startupTimingsListener.onStartupTimings(startupTimings);
+            }
+        }
+    };
+
     /**
      * Constructor of {@link SideNavigationView}.
      *
@@ -109,9 +437,27 @@ public class SideNavigationView extends LinearLayout {
         if (isInEditMode()) {
             return;
         }
+        long start = 0;
+        if (startupTimingEnabled) {
+            startupTimings = new DrawerStartupTimings();
+            startupTimeNanos = System.nanoTime();
+            start = startupTimeNanos;
+        }
         initView();
+        if (startupTimings != null) {
+            long end = System.nanoTime();
+            startupTimings.initViewNanos = end - start;
+            start = end;
+        }
         paint.setColor(0x0f0f0000);
+        outsideAlphaLevels = Math.max(1, Color.alpha(getResources().getColor(R.color.side_navigation_outside_background)));
         activeXDiff = getResources().getDimensionPixelOffset(R.dimen.side_navigation_active_margin);
+        touchSlop = ViewConfiguration.get(getContext()).getScaledTouchSlop();
+        gestureTracker = new DrawerGestureTracker(gestureHost, touchSlop, activeXDiff);
+        dockMinWidth = getResources().getDimensionPixelSize(R.dimen.side_navigation_dock_min_width);
+        if (startupTimings != null) {
+            startupTimings.dimensionsNanos = System.nanoTime() - start;
+        }
     }
 
     /**
@@ -134,8 +480,16 @@ public class SideNavigationView extends LinearLayout {
         }
         LayoutInflater.from(getContext()).inflate(sideNavigationRes, this, true);
         navigationMenu = (TransformableDrawerLayout) findViewById(R.id.side_navigation_menu);
+        navigationMenu.setPropertyAnimationEnabled(propertyAnimationEnabled);
+        navigationMenu.setAnimationClock(animationClock);
+        navigationMenu.setDocked(docked);
+        if (startupTimings != null && !startupTimingsReady) {
+            navigationMenu.setFirstFrameTimingListener(firstFrameTimingListener);
+        }
         // navigationMenu.setEnabled(false);
         menuContent = (LinearLayout) findViewById(R.id.side_navigation_content);
+        menuContent.setDescendantFocusability(ViewGroup.FOCUS_BLOCK_DESCENDANTS);
+        setMenuContentAccessible(drawerState != DrawerState.CLOSED);
         ivHandle = (ImageView) findViewById(R.id.side_navigation_handle);
         ivHandle.setOnClickListener(new OnClickListener() {
             @Override
@@ -149,6 +503,39 @@ public class SideNavigationView extends LinearLayout {
         outsideView = findViewById(R.id.side_navigation_outside_view);
     }
 
+    /**
+     * Enables recording of startup timings for {@link SideNavigationView} instances created after
+     * this call. Disabled by default.
+     *
+     * @param enabled true to record the timings
+     * @see #setOnStartupTimingsListener(OnStartupTimingsListener)
+     */
+    public static void setStartupTimingEnabled(boolean enabled) {
+        startupTimingEnabled = enabled;
+    }
+
+    /**
+     * Register a callback to get startup timings of this view, after the drawer is drawn for the
+     * first time. If the timings are already recorded, the callback is invoked immediately.
+     *
+     * @param listener the callback that will run
+     */
+    public void setOnStartupTimingsListener(OnStartupTimingsListener listener) {
+        startupTimingsListener = listener;
+        if (listener != null && startupTimingsReady) {
+            listener.onStartupTimings(startupTimings);
+        }
+    }
+
+    /**
+     * Returns startup timings of this view.
+     *
+     * @return timings recorded so far, or null if the recording was not enabled
+     */
+    public DrawerStartupTimings getStartupTimings() {
+        return startupTimings;
+    }
+
     /**
      * Setup sliding mode of side menu ({@code Mode.LEFT} or {@code Mode.RIGHT}). {@code Mode.LEFT} by default.
      *
@@ -186,12 +573,60 @@ public class SideNavigationView extends LinearLayout {
      * @param resId layout ID for the view to be used as menu content.
      */
     public void setContentView(int resId) {
-        LayoutInflater inflater = LayoutInflater.from(getContext());
-        if (inflater != null) {
-            menuContentView = inflater.inflate(resId, null);
-            menuContent.addView(menuContentView);
+        long start = System.nanoTime();
+        menuContentResId = resId;
+        menuContentShared = false;
+        menuContentReleased = false;
+        inflateMenuContent();
+        recordContentViewTime(start);
+    }
+
+    /**
+     * Sets content of the drawer view using {@link DrawerContentPool}. Content view is taken from
+     * the pool (which keeps a spare one ready for the next screen), and is put back there when this
+     * view is detached from window. Content is inflated with the application context. Bind it in
+     * {@link OnContentViewCreatedListener} and unbind it in {@link OnContentViewReleasedListener}.
+     *
+     * @param resId layout ID for the view to be used as menu content.
+     */
+    public void setSharedContentView(int resId) {
+        long start = System.nanoTime();
+        menuContentResId = resId;
+        menuContentShared = true;
+        menuContentReleased = false;
+        inflateMenuContent();
+        recordContentViewTime(start);
+    }
+
+    private void recordContentViewTime(long start) {
+        if (startupTimings != null && !startupTimingsReady) {
+            startupTimings.contentViewNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Rebuilds the content, if it was released on memory pressure or returned to the pool.
+     */
+    private void ensureMenuContent() {
+        if (menuContentReleased) {
+            menuContentReleased = false;
+            inflateMenuContent();
+        }
+    }
+
+    private void inflateMenuContent() {
+        if (menuContentShared) {
+            menuContentView = DrawerContentPool.getInstance().obtain(getContext(), menuContentResId);
         } else {
-            throw new IllegalStateException("Unable to get valid inflater!");
+            LayoutInflater inflater = LayoutInflater.from(getContext());
+            if (inflater == null) {
+                throw new IllegalStateException("Unable to get valid inflater!");
+            }
+            menuContentView = inflater.inflate(menuContentResId, null);
+        }
+        menuContent.addView(menuContentView);
+        if (contentViewCreatedListener != null) {
+            contentViewCreatedListener.onContentViewCreated(menuContentView);
         }
     }
 
@@ -202,92 +637,627 @@ public class SideNavigationView extends LinearLayout {
      */
     public void setContentView(View contentView) {
         if (contentView != null) {
-            menuContent.addView(contentView);
+            long start = System.nanoTime();
+            attachContentView(contentView);
+            recordContentViewTime(start);
+        }
+    }
+
+    private void attachContentView(View contentView) {
+        menuContentResId = 0;
+        menuContentShared = false;
+        menuContentReleased = false;
+        menuContent.addView(contentView);
+    }
+
+    /**
+     * Sets content of the drawer view to the list of items. Text layouts of the item labels are
+     * precomputed and the icons are decoded on the background thread, so they are ready when the
+     * drawer is opened.
+     *
+     * @param items items of the menu
+     */
+    public void setMenuItems(List<SideNavigationItem> items) {
+        long start = System.nanoTime();
+        Context context = getContext();
+        TextLayoutCache textLayoutCache = TextLayoutCache.getInstance(context);
+        IconCache iconCache = IconCache.getInstance(context);
+        int itemPadding = getResources().getDimensionPixelSize(R.dimen.side_navigation_item_padding);
+        int iconSize = getResources().getDimensionPixelSize(R.dimen.side_navigation_item_icon_size);
+        int textWidth = getResources().getDimensionPixelSize(R.dimen.side_navigation_width) - 2 * itemPadding;
+
+        LayoutInflater inflater = LayoutInflater.from(context);
+        LinearLayout itemsLayout = new LinearLayout(context);
+        itemsLayout.setOrientation(LinearLayout.VERTICAL);
+        for (final SideNavigationItem item : items) {
+            View itemView = inflater.inflate(R.layout.side_navigation_item, itemsLayout, false);
+            ImageView icon = (ImageView) itemView.findViewById(R.id.side_navigation_item_icon);
+            ItemLabelView label = (ItemLabelView) itemView.findViewById(R.id.side_navigation_item_label);
+            if (item.getIcon() != 0) {
+                iconCache.load(icon, item.getIcon(), iconSize);
+                label.setText(item.getText(), textWidth - iconSize - itemPadding, textLayoutCache);
+            } else {
+                icon.setVisibility(View.GONE);
+                label.setText(item.getText(), textWidth, textLayoutCache);
+            }
+            itemView.setOnClickListener(new OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    if (menuItemClickListener != null) {
+                        menuItemClickListener.onMenuItemClick(item);
+                    }
+                }
+            });
+            itemsLayout.addView(itemView);
+        }
+        ScrollView scrollView = new ScrollView(context);
+        scrollView.addView(itemsLayout);
+        attachContentView(scrollView);
+        recordContentViewTime(start);
+    }
+
+    /**
+     * Register a callback to be invoked when an item set with {@link #setMenuItems(List)} is
+     * clicked.
+     *
+     * @param listener the callback that will run
+     */
+    public void setOnMenuItemClickListener(OnMenuItemClickListener listener) {
+        menuItemClickListener = listener;
+    }
+
+    /**
+     * Register a callback, that is invoked every time the drawer content is inflated from the layout
+     * resource, including rebuilding it after being released on low memory.
+     *
+     * @param listener the callback that will run
+     */
+    public void setOnContentViewCreatedListener(OnContentViewCreatedListener listener) {
+        contentViewCreatedListener = listener;
+    }
+
+    /**
+     * Register a callback, that is invoked every time the drawer content inflated from the layout
+     * resource is removed from the drawer, before it is put back to the pool or released on low
+     * memory.
+     *
+     * @param listener the callback that will run
+     */
+    public void setOnContentViewReleasedListener(OnContentViewReleasedListener listener) {
+        contentViewReleasedListener = listener;
+    }
+
+    private void releaseMenuContent() {
+        if (contentViewReleasedListener != null) {
+            contentViewReleasedListener.onContentViewReleased(menuContentView);
+        }
+        if (menuContentShared) {
+            // hand the content over to the next screen, it is taken back on the next opening
+            DrawerContentPool.getInstance().recycle(menuContentResId, menuContentView);
+        } else {
+            menuContent.removeView(menuContentView);
+        }
+        menuContentView = null;
+        menuContentReleased = true;
+    }
+
+    /**
+     * Allows releasing of the closed drawer content on memory pressure. Only the content set with
+     * {@link #setContentView(int)} can be released, it is inflated again on the next opening. Content
+     * set with {@link #setSharedContentView(int)} is kept, only the spare views of
+     * {@link DrawerContentPool} are dropped. Disabled by default.
+     *
+     * @param release true, if the content may be released
+     */
+    public void setReleaseContentOnTrimMemory(boolean release) {
+        releaseContentOnTrim = release;
+    }
+
+    /**
+     * Releases resources of the drawer depending on the memory trim level. Called automatically on
+     * API 14 and above, on earlier versions it can be called from {@code Activity.onLowMemory()}
+     * with {@link ComponentCallbacks2#TRIM_MEMORY_COMPLETE} level.
+     *
+     * @param level trim level, as passed to {@link ComponentCallbacks2#onTrimMemory(int)}
+     */
+    public void onTrimMemory(int level) {
+        if (DEBUG_LOG) {
+            Log.d(LOG_TAG, "onTrimMemory " + level);
+        }
+        if (isInEditMode()) {
+            return;
+        }
+        navigationMenu.destroyDrawingCache();
+        menuContent.destroyDrawingCache();
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            DrawerContentPool.getInstance().clear();
+            TextLayoutCache.getInstance(getContext()).clear();
+            IconCache.getInstance(getContext()).clear();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && releaseContentOnTrim && !menuContentReleased
+                        && menuContentResId != 0 && !menuContentShared && drawerState == DrawerState.CLOSED) {
+            releaseMenuContent();
         }
     }
 
     @Override
     protected void onAttachedToWindow() {
-        if (navigationMenu != null) {
+        if (navigationMenu != null && !docked) {
             navigationMenu.setOpenningProgressListener(openningListener);
         }
+        if (docked) {
+            // shared content is given back to the pool on detach, docked drawer needs it right away
+            ensureMenuContent();
+        }
+        if (android.os.Build.VERSION.SDK_INT >= 14 && !isInEditMode()) {
+            registerTrimMemoryCallbacks();
+        }
         super.onAttachedToWindow();
+        // notifications removed on detach
+        if (dockChangePending) {
+            post(dockChangeNotifier);
+        }
+        if (startupTimingsPending) {
+            post(startupTimingsNotifier);
+        }
+        boolean schedule;
+        synchronized (requestLock) {
+            attachedToWindow = true;
+            // requests made before the view was attached
+            schedule = pendingRequest != REQUEST_NONE && !requestScheduled;
+            requestScheduled |= schedule;
+        }
+        if (schedule) {
+            ViewCompat.postOnAnimation(this, requestDispatcher);
+        }
     }
 
     @Override
     protected void onDetachedFromWindow() {
+        cancelLayoutUpdate();
+        removeCallbacks(requestDispatcher);
+        mainHandler.removeCallbacks(requestDispatcher);
+        // listeners are not called after detach, pending notifications are posted again on attach
+        removeCallbacks(dockChangeNotifier);
+        removeCallbacks(startupTimingsNotifier);
+        synchronized (requestLock) {
+            attachedToWindow = false;
+            pendingRequest = REQUEST_NONE;
+            requestScheduled = false;
+        }
+        if (gestureTracker != null) {
+            gestureTracker.reset();
+        }
+        contentGesture = false;
         if (navigationMenu != null) {
             navigationMenu.removeOpenningProgressListener();
         }
+        if (trimMemoryCallbacks != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(trimMemoryCallbacks);
+            trimMemoryCallbacks = null;
+        }
+        if (menuContentShared && menuContentView != null) {
+            releaseMenuContent();
+        }
         super.onDetachedFromWindow();
     }
 
-    /**
-     * Show side navigation menu.
-     */
-    public void showMenu() {
-        setDrawerVisible();
-        velocityX = 1f;
-        showMenuWithVelocity();
-        if (DEBUG_LOG) {
-            Log.d(LOG_TAG, "showMenu()");
+    private void registerTrimMemoryCallbacks() {
+        if (trimMemoryCallbacks != null) {
+            return;
         }
+        trimMemoryCallbacks = new ComponentCallbacks2() {
+
+            @Override
+            public void onTrimMemory(int level) {
+                SideNavigationView.this.onTrimMemory(level);
+            }
+
+            @Override
+            public void onLowMemory() {
+                SideNavigationView.this.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {}
+        };
+        getContext().getApplicationContext().registerComponentCallbacks(trimMemoryCallbacks);
     }
 
     /**
-     * Hide side navigation menu.
+     * Enables open/close animations performed with framework property animations on a hardware
+     * layer (API 16 and above, where they are timed by Choreographer with the display frames). The
+     * drawer is not redrawn on every frame, which makes the frames cheaper, but the animation still
+     * runs on the UI thread. Enabled by default, on earlier API levels (or when an animation clock is
+     * set) the drawer is animated by redrawing it.
+     *
+     * @param enabled true to use property animations where available
      */
-    public void hideMenu() {
-        if (isDragging) {
-            return;
-        }
-        velocityX = 1f;
-        hideMenuWithVelocity();
-        if (DEBUG_LOG) {
-            Log.d(LOG_TAG, "hideMenu()");
-        }
+    public void setPropertyAnimationEnabled(boolean enabled) {
+        propertyAnimationEnabled = enabled;
+        navigationMenu.setPropertyAnimationEnabled(enabled);
     }
 
     /**
-     * Show/Hide side navigation menu depending on visibility.
+     * Sets the source of time for the open/close animations, e.g. a simulated clock in tests or
+     * benchmarks. While a clock other than {@link DrawerAnimator#ANIMATION_CLOCK} is set, the
+     * animations are computed by {@link DrawerAnimator} instead of property animations, and can be
+     * advanced frame by frame with {@link #stepAnimation()}.
+     *
+     * @param clock clock to be used, or null for the default one
      */
-    public void toggleMenu() {
-        if (isShown() && navigationMenu.getPercentOpen() >= 0.95f) {
-            hideMenu();
-        } else {
-            showMenu();
-        }
+    public void setAnimationClock(DrawerAnimator.Clock clock) {
+        animationClock = clock != null ? clock : DrawerAnimator.ANIMATION_CLOCK;
+        navigationMenu.setAnimationClock(animationClock);
     }
 
     /**
-     * Indicates if the drawer is visible.
+     * Moves the drawer to the frame of the running open/close animation computed for the current
+     * time of the animation clock. Frames are normally computed when the drawer is drawn, this method
+     * allows driving {@link #showMenuWithVelocity()} and {@link #hideMenuWithVelocity()} without
+     * waiting for the display.
+     *
+     * @return true if the animation is still running after this frame
+     * @see #setAnimationClock(DrawerAnimator.Clock)
      */
-    @Override
-    public boolean isShown() {
-        return navigationMenu.isDrawerVisible();
+    public boolean stepAnimation() {
+        return navigationMenu.stepAnimation();
     }
 
-    @Override
-    public boolean dispatchTouchEvent(MotionEvent ev) {
+    /**
+     * Sets the mode of presenting the drawer. In docked mode the view measures itself to the width
+     * of the drawer, which stays opened without the handle, the outside view or any touch
+     * interception, so the parent can lay out the content next to it. Content of the drawer is kept
+     * when the mode changes. {@link DockMode#OVERLAY} by default.
+     *
+     * @param mode presenting mode
+     * @see #setOnDockChangeListener(OnDockChangeListener)
+     */
+    public void setDockMode(DockMode mode) {
+        dockMode = mode;
+        updateDocked();
+    }
+
+    /**
+     * Returns the mode of presenting the drawer.
+     *
+     * @return presenting mode
+     */
+    public DockMode getDockMode() {
+        return dockMode;
+    }
+
+    /**
+     * Indicates if the drawer is currently docked.
+     *
+     * @return true if the drawer is docked
+     */
+    public boolean isDocked() {
+        return docked;
+    }
+
+    /**
+     * Register a callback to be invoked when the drawer is docked or undocked.
+     *
+     * @param listener the callback that will run
+     */
+    public void setOnDockChangeListener(OnDockChangeListener listener) {
+        dockChangeListener = listener;
+    }
+
+    /**
+     * Enables deferred interception of gestures starting at the edge of the screen. The drawer is
+     * not moved until the gesture crosses the touch slop horizontally, vertical gestures don't move
+     * it at all, and gestures starting over content that can scroll horizontally (API 14 and above)
+     * are left to that content. Disabled by default.<br>
+     * Unless the content is wrapped in {@link SideNavigationContentLayout}, the drawer consumes the
+     * whole gesture starting at the edge over content that can't scroll horizontally: taps and
+     * vertical drags there don't reach the content. With the content layout set up, the drawer
+     * watches touch events of the content instead and takes over only horizontal drags.
+     *
+     * @param deferred true to defer the edge interception
+     */
+    public void setDeferredEdgeInterception(boolean deferred) {
+        deferredEdgeInterception = deferred;
+    }
+
+    /**
+     * Register a callback to get information about state changes of the drawer.
+     *
+     * @param listener the callback that will run, or null to remove it
+     */
+    public void setOnDrawerStateChangeListener(OnDrawerStateChangeListener listener) {
+        drawerStateListener = listener;
+    }
+
+    /**
+     * Returns current state of the drawer.
+     *
+     * @return drawer state, {@link DrawerState#CLOSED} by default.
+     */
+    public DrawerState getDrawerState() {
+        return drawerState;
+    }
+
+    /**
+     * Returns part of the view width currently covered by the drawer.
+     *
+     * @return value in range [0, 1]
+     */
+    public float getOccludedFraction() {
+        return occludedFraction;
+    }
+
+    /**
+     * Show side navigation menu.
+     */
+    public void showMenu() {
+        if (docked || drawerState == DrawerState.OPENED
+                        || (drawerState == DrawerState.SETTLING && navigationMenu.getAnimationTargetX() == 0f)) {
+            // already opened or openning
+            return;
+        }
+        setDrawerVisible();
+        velocityX = 1f;
+        showMenuWithVelocity();
+        if (DEBUG_LOG) {
+            Log.d(LOG_TAG, "showMenu()");
+        }
+    }
+
+    /**
+     * Hide side navigation menu.
+     */
+    public void hideMenu() {
+        if (docked || isDragging() || drawerState == DrawerState.CLOSED
+                        || (drawerState == DrawerState.SETTLING && navigationMenu.getAnimationTargetX() < 0f)) {
+            return;
+        }
+        velocityX = 1f;
+        hideMenuWithVelocity();
+        if (DEBUG_LOG) {
+            Log.d(LOG_TAG, "hideMenu()");
+        }
+    }
+
+    /**
+     * Show/Hide side navigation menu depending on visibility.
+     */
+    public void toggleMenu() {
+        if (docked) {
+            return;
+        }
+        boolean opened;
+        if (drawerState == DrawerState.SETTLING) {
+            opened = navigationMenu.getAnimationTargetX() == 0f;
+        } else {
+            opened = isShown() && navigationMenu.getPercentOpen() >= 0.95f;
+        }
+        if (opened) {
+            hideMenu();
+        } else {
+            showMenu();
+        }
+    }
+
+    /**
+     * Requests showing of the side navigation menu. Can be called from any thread, all requests made
+     * before the next frame are coalesced, so only the final target state is animated.
+     */
+    public void requestShowMenu() {
+        postRequest(REQUEST_SHOW);
+    }
+
+    /**
+     * Requests hiding of the side navigation menu. Can be called from any thread.
+     *
+     * @see #requestShowMenu()
+     */
+    public void requestHideMenu() {
+        postRequest(REQUEST_HIDE);
+    }
+
+    /**
+     * Requests toggling of the side navigation menu. Can be called from any thread, toggle is applied
+     * to the target state of the requests made before it.
+     *
+     * @see #requestShowMenu()
+     */
+    public void requestToggleMenu() {
+        postRequest(REQUEST_TOGGLE);
+    }
+
+    /**
+     * Moves the drawer directly to the given position, without any animation. Running animation is
+     * stopped. Useful for driving the drawer by external gestures or animations. Can be called from
+     * any thread, the position is applied before the next frame and coalesced with the other
+     * requests, so only the last one made before the frame takes effect.
+     *
+     * @param fraction visible part of the drawer, in range [0, 1]
+     * @see #requestShowMenu()
+     */
+    public void setOpenFraction(float fraction) {
+        postRequest(REQUEST_FRACTION, Math.max(0f, Math.min(1f, fraction)));
+    }
+
+    private void postRequest(int request) {
+        postRequest(request, 0f);
+    }
+
+    private void postRequest(int request, float fraction) {
+        boolean schedule;
+        boolean attached;
+        synchronized (requestLock) {
+            if (request == REQUEST_TOGGLE) {
+                switch (pendingRequest) {
+                    case REQUEST_SHOW:
+                        request = REQUEST_HIDE;
+                        break;
+                    case REQUEST_HIDE:
+                        request = REQUEST_SHOW;
+                        break;
+                    case REQUEST_TOGGLE:
+                        request = REQUEST_NONE;
+                        break;
+                    case REQUEST_FRACTION:
+                        request = pendingFraction >= 0.95f ? REQUEST_HIDE : REQUEST_SHOW;
+                        break;
+                }
+            }
+            pendingRequest = request;
+            pendingFraction = fraction;
+            schedule = !requestScheduled;
+            requestScheduled = true;
+            attached = attachedToWindow;
+        }
+        if (schedule) {
+            if (attached) {
+                // runs with the animations of the next frame
+                ViewCompat.postOnAnimation(this, requestDispatcher);
+            } else {
+                // the view can't post from other threads until it is attached
+                mainHandler.post(requestDispatcher);
+            }
+        }
+    }
+
+    private void applyOpenFraction(float fraction) {
+        if (docked) {
+            return;
+        }
+        navigationMenu.cancelAnimation();
+        if (fraction > 0f && !isShown()) {
+            setDrawerVisible();
+        }
+        navigationMenu.setTransX(-(1f - fraction) * navigationMenu.getContentWidth());
+        if (fraction == 0f) {
+            setDrawerInvisible();
+            setDrawerState(DrawerState.CLOSED);
+        } else if (fraction == 1f) {
+            setDrawerState(DrawerState.OPENED);
+        } else {
+            setDrawerState(DrawerState.DRAGGING);
+        }
+    }
+
+    /**
+     * Indicates if the drawer is visible over the content. Always false in docked mode.
+     */
+    @Override
+    public boolean isShown() {
+        return !docked && navigationMenu.isDrawerVisible();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        updateDocked();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (isInEditMode()) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        // docked state is decided out of the measure pass, see updateDocked()
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        if (docked) {
+            // take only the width of the drawer, the content is laid out next to it by the parent
+            int drawerWidth = navigationMenu.getMeasuredWidth();
+            if (drawerWidth != getMeasuredWidth()) {
+                super.onMeasure(MeasureSpec.makeMeasureSpec(drawerWidth, MeasureSpec.EXACTLY), heightMeasureSpec);
+            }
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        int drawerWidth = docked ? getWidth() : 0;
+        if (docked != reportedDocked || drawerWidth != reportedDrawerWidth) {
+            reportedDocked = docked;
+            reportedDrawerWidth = drawerWidth;
+            dockChangePending = true;
+            removeCallbacks(dockChangeNotifier);
+            post(dockChangeNotifier);
+        }
+    }
+
+    /**
+     * Docks or undocks the drawer according to the dock mode and the current configuration.
+     */
+    private void updateDocked() {
+        boolean dock;
+        switch (dockMode) {
+            case DOCKED:
+                dock = true;
+                break;
+            case AUTO:
+                dock = getSmallestScreenWidth() >= dockMinWidth;
+                break;
+            default:
+                dock = false;
+                break;
+        }
+        if (dock != docked) {
+            setDocked(dock);
+        }
+    }
+
+    /**
+     * @return smallest width of the screen in pixels, independent of the orientation
+     */
+    private int getSmallestScreenWidth() {
+        Resources res = getResources();
+        DisplayMetrics metrics = res.getDisplayMetrics();
+        if (android.os.Build.VERSION.SDK_INT >= 13) {
+            int smallestWidthDp = res.getConfiguration().smallestScreenWidthDp;
+            if (smallestWidthDp != Configuration.SMALLEST_SCREEN_WIDTH_DP_UNDEFINED) {
+                return (int) (smallestWidthDp * metrics.density + 0.5f);
+            }
+        }
+        return Math.min(metrics.widthPixels, metrics.heightPixels);
+    }
+
+    private void setDocked(boolean dock) {
+        if (DEBUG_LOG) {
+            Log.d(LOG_TAG, "setDocked " + dock);
+        }
+        docked = dock;
+        cancelLayoutUpdate();
+        gestureTracker.reset();
+        contentGesture = false;
+        navigationMenu.setDocked(dock);
+        if (dock) {
+            navigationMenu.removeOpenningProgressListener();
+            setDrawerVisible();
+            outsideView.setVisibility(View.GONE);
+            setDrawerState(DrawerState.OPENED);
+        } else {
+            if (getWindowToken() != null) {
+                navigationMenu.setOpenningProgressListener(openningListener);
+            }
+            setDrawerInvisible();
+            setDrawerState(DrawerState.CLOSED);
+        }
+        // the listener is notified after the layout with the new width
+        requestLayout();
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (docked) {
+            return super.dispatchTouchEvent(ev);
+        }
         if (android.os.Build.VERSION.SDK_INT < 11) {
             boolean retVal = false;
             final int action = MotionEventCompat.getActionMasked(ev);
-            switch (action) {
-                case MotionEvent.ACTION_DOWN: {
-                    final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-                    final float x = MotionEventCompat.getX(ev, pointerIndex);
-                    final float y = MotionEventCompat.getY(ev, pointerIndex);
-                    float navMenuRight = navigationMenu.getContentWidth() + navigationMenu.getTransX();
-                    if (navigationMenu.getHandleRect().contains((int) x, (int) y)) {
-                        retVal = true;
-                    } else if (Math.abs(x) < activeXDiff || (isShown() && x > navMenuRight - activeXDiff)) {
-                        retVal = true;
-                    }
-                    break;
-                }
+            if (action == MotionEvent.ACTION_DOWN) {
+                retVal = isDownClaimed(ev);
             }
             if (!retVal) {
-                if (isShown() || isDragging) {
+                if (isShown() || isDragging()) {
                     retVal = true;
                 }
             }
@@ -306,31 +1276,14 @@ public class SideNavigationView extends LinearLayout {
 
     @Override
     public boolean onInterceptTouchEvent(MotionEvent ev) {
+        if (docked) {
+            return false;
+        }
         boolean retVal = false;
         final int action = MotionEventCompat.getActionMasked(ev);
         // Log.d("onintercept", "action " + action);
-        switch (action) {
-            case MotionEvent.ACTION_DOWN: {
-                final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-                final float x = MotionEventCompat.getX(ev, pointerIndex);
-                final float y = MotionEventCompat.getY(ev, pointerIndex);
-
-
-                float navMenuRight = navigationMenu.getContentWidth() + navigationMenu.getTransX();
-                if (DEBUG_LOG) {
-                    Log.v("onInterceptTouchEvent", "navMenuRight: " + navMenuRight + " x: " + x + " isShown " + isShown());
-                }
-                if (navigationMenu.getHandleRect().contains((int) x, (int) y)) {
-                    if (DEBUG_LOG) {
-                        Log.v("onintercept", "handle pressed");
-                    }
-                    // ivHandle.performClick();
-                    retVal = true;
-                } else if (Math.abs(x) < activeXDiff || (isShown() && x > navMenuRight - activeXDiff)) {
-                    retVal = true;
-                }
-                break;
-            }
+        if (action == MotionEvent.ACTION_DOWN) {
+            retVal = isDownClaimed(ev);
         }
         if (DEBUG_LOG) {
             Log.d(LOG_TAG, "onIntercept returns " + String.valueOf(retVal));
@@ -338,162 +1291,237 @@ public class SideNavigationView extends LinearLayout {
         return retVal;
     }
 
+    /**
+     * Decides if the gesture starting with given ACTION_DOWN event belongs to the drawer. The
+     * decision is made once per gesture and reused by all the touch handling methods.
+     */
+    private boolean isDownClaimed(MotionEvent ev) {
+        if (ev.getDownTime() == claimedDownTime) {
+            return downClaimed;
+        }
+        claimedDownTime = ev.getDownTime();
+        final int pointerIndex = MotionEventCompat.getActionIndex(ev);
+        final float x = MotionEventCompat.getX(ev, pointerIndex);
+        final float y = MotionEventCompat.getY(ev, pointerIndex);
 
-    @Override
-    public boolean onTouchEvent(MotionEvent ev) {
-        boolean retValue = false;
-        final int action = MotionEventCompat.getActionMasked(ev);
+        float navMenuRight = navigationMenu.getContentWidth() + navigationMenu.getTransX();
         if (DEBUG_LOG) {
-            Log.v("onTouch", "Action: " + action);
+            Log.v("isDownClaimed", "navMenuRight: " + navMenuRight + " x: " + x + " isShown " + isShown());
+        }
+        downOnEdge = false;
+        if (navigationMenu.getHandleRect().contains((int) x, (int) y)) {
+            if (DEBUG_LOG) {
+                Log.v("isDownClaimed", "handle pressed");
+            }
+            downClaimed = true;
+        } else if (isShown() && x > navMenuRight - activeXDiff) {
+            downClaimed = true;
+        } else if (Math.abs(x) < activeXDiff) {
+            downOnEdge = true;
+            if (deferredEdgeInterception && watchedContent != null) {
+                // watched in the touch events of the content, see onContentTouchEvent
+                downClaimed = false;
+            } else {
+                // leave the gesture to the content under the drawer, if it can scroll that way
+                downClaimed = !deferredEdgeInterception || !canContentScrollHorizontally(x, y, -1);
+            }
+        } else {
+            downClaimed = false;
         }
+        return downClaimed;
+    }
 
-        switch (action) {
-            case MotionEvent.ACTION_DOWN: {
-                final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-                final float x = MotionEventCompat.getX(ev, pointerIndex);
-                final float y = MotionEventCompat.getY(ev, pointerIndex);
+    /**
+     * Checks if any view under the side navigation view (drawn before it by the parent) at given
+     * point can be scrolled horizontally. Available on API 14 and above.
+     */
+    private boolean canContentScrollHorizontally(float x, float y, int direction) {
+        if (!(getParent() instanceof ViewGroup)) {
+            return false;
+        }
+        ViewGroup parent = (ViewGroup) getParent();
+        float parentX = x + getLeft();
+        float parentY = y + getTop();
+        for (int i = parent.indexOfChild(this) - 1; i >= 0; i--) {
+            View sibling = parent.getChildAt(i);
+            if (canScrollHorizontally(sibling, parentX - sibling.getLeft(), parentY - sibling.getTop(), direction)) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-                // TODO: add handling of right-type menu
-                if (DEBUG_LOG) {
-                    Log.v("SideNavView", "down: " + x);
+    private static boolean canScrollHorizontally(View view, float x, float y, int direction) {
+        if (view.getVisibility() != View.VISIBLE || x < 0 || y < 0 || x >= view.getWidth() || y >= view.getHeight()) {
+            return false;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            float groupX = x + group.getScrollX();
+            float groupY = y + group.getScrollY();
+            for (int i = group.getChildCount() - 1; i >= 0; i--) {
+                View child = group.getChildAt(i);
+                if (canScrollHorizontally(child, groupX - child.getLeft(), groupY - child.getTop(), direction)) {
+                    return true;
                 }
+            }
+        }
+        return ViewCompat.canScrollHorizontally(view, direction);
+    }
 
-                float navMenuRight = navigationMenu.getContentWidth() + navigationMenu.getTransX();
-                boolean handlePressed = navigationMenu.getHandleRect().contains((int) x, (int) y);
-                if (handlePressed) {
-                    mHandleClickedX = x;
-                    mHandleClickedY = y;
-                }
+    /**
+     * Sets the content whose touch events are watched in the deferred edge interception mode.
+     */
+    void setWatchedContent(View content) {
+        if (content != watchedContent && contentGesture) {
+            // settle the drawer moved by the previous content
+            contentGesture = false;
+            cancelLayoutUpdate();
+            gestureTracker.onCancel();
+        }
+        watchedContent = content;
+    }
 
-                if (handlePressed || Math.abs(x) < activeXDiff || (isShown() && x > navMenuRight - activeXDiff)) {
-                    isDragging = true;
-                    // Remember where we started (for dragging)
-                    mLastTouchX = x;
-                    mLastTouchY = y;
-                    // Save the ID of this pointer (for dragging)
-                    mActivePointerId = MotionEventCompat.getPointerId(ev, 0);
-
-                    velocityTracker = VelocityTracker.obtain();
-                    velocityTracker.addMovement(ev);
-                    retValue = true;
-                }
-                break;
+    /**
+     * Watches touch event intercepted by the content layout.
+     *
+     * @return true if the drawer takes over the rest of the gesture
+     */
+    boolean onInterceptContentTouchEvent(View content, MotionEvent ev) {
+        return onContentTouchEvent(content, ev) && !gestureTracker.isDragPending();
+    }
+
+    /**
+     * Passes touch event of the content to the drawer, if the gesture started at the edge of the
+     * screen over content that can't scroll horizontally. The same ACTION_DOWN may come both from
+     * onInterceptTouchEvent and onTouchEvent of the content layout, it is handled once.
+     *
+     * @return true while the gesture is watched by the drawer
+     */
+    boolean onContentTouchEvent(View content, MotionEvent ev) {
+        if (content != watchedContent) {
+            return false;
+        }
+        final int action = MotionEventCompat.getActionMasked(ev);
+        if (action == MotionEvent.ACTION_DOWN) {
+            if (ev.getDownTime() == contentDownTime) {
+                return contentGesture;
             }
+            contentDownTime = ev.getDownTime();
+            contentGesture = false;
+            // another pointer may be moving the drawer already
+            if (docked || !deferredEdgeInterception || isShown() || isDragging()) {
+                return false;
+            }
+            // the content may be placed anywhere, translate to coordinates of this view
+            content.getLocationInWindow(locationBuffer);
+            contentOffsetX = locationBuffer[0];
+            contentOffsetY = locationBuffer[1];
+            getLocationInWindow(locationBuffer);
+            contentOffsetX -= locationBuffer[0];
+            contentOffsetY -= locationBuffer[1];
+            final int pointerIndex = MotionEventCompat.getActionIndex(ev);
+            final float x = MotionEventCompat.getX(ev, pointerIndex);
+            final float y = MotionEventCompat.getY(ev, pointerIndex);
+            if (Math.abs(x + contentOffsetX) >= activeXDiff || canScrollHorizontally(content, x, y, -1)) {
+                return false;
+            }
+            contentGesture = true;
+        } else if (!contentGesture) {
+            return false;
+        }
 
-            case MotionEvent.ACTION_MOVE: {
-                if (isDragging) {
-                    velocityTracker.addMovement(ev);
-                    // Find the index of the active pointer and fetch its position
-                    final int pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
+        // translate the event in place, it is given back to the content unchanged
+        ev.offsetLocation(contentOffsetX, contentOffsetY);
+        touchPointers.setEvent(ev);
+        try {
+            switch (action) {
+                case MotionEvent.ACTION_DOWN:
+                    gestureTracker.onDown(touchPointers, true, true);
+                    break;
 
-                    final float x = MotionEventCompat.getX(ev, pointerIndex);
-                    final float y = MotionEventCompat.getY(ev, pointerIndex);
+                case MotionEvent.ACTION_MOVE:
+                    gestureTracker.onMove(touchPointers);
+                    break;
 
-                    // Calculate the distance moved
-                    final float dx = x - mLastTouchX;
-                    final float dy = y - mLastTouchY;
+                case MotionEvent.ACTION_UP:
+                    cancelLayoutUpdate();
+                    gestureTracker.onUp(touchPointers);
+                    break;
 
-                    mPosX += dx;
-                    mPosY += dy;
+                case MotionEvent.ACTION_CANCEL:
+                    cancelLayoutUpdate();
+                    gestureTracker.onCancel();
+                    break;
 
-                    if (isShown()) {
-                        updateLayout();
-                    } else {
+                case MotionEvent.ACTION_POINTER_UP:
+                    gestureTracker.onPointerUp(touchPointers);
+                    break;
+            }
+        } finally {
+            touchPointers.setEvent(null);
+            ev.offsetLocation(-contentOffsetX, -contentOffsetY);
+        }
+        if (!gestureTracker.isDragging()) {
+            // vertical gesture, or the gesture is over
+            contentGesture = false;
+        }
+        return contentGesture;
+    }
 
-                        setDrawerVisible();
-                    }
+    /**
+     * Stops watching the gesture of the content, if the drawer hasn't taken it over yet. Called
+     * when the content disallows interception of its touch events.
+     */
+    void cancelContentTouchEvents() {
+        if (contentGesture && gestureTracker.isDragPending()) {
+            contentGesture = false;
+            gestureTracker.reset();
+        }
+    }
 
-                    // Remember this touch position for the next move event
-                    mLastTouchX = x;
-                    mLastTouchY = y;
 
-                    retValue = true;
-                }
+    @Override
+    public boolean onTouchEvent(MotionEvent ev) {
+        if (docked) {
+            return false;
+        }
+        boolean retValue = false;
+        final int action = MotionEventCompat.getActionMasked(ev);
+        if (DEBUG_LOG) {
+            Log.v("onTouch", "Action: " + action);
+        }
 
+        touchPointers.setEvent(ev);
+        switch (action) {
+            case MotionEvent.ACTION_DOWN: {
+                // TODO: add handling of right-type menu
+                boolean claimed = isDownClaimed(ev);
+                // in deferred mode drag from the edge starts after crossing the touch slop
+                retValue = gestureTracker.onDown(touchPointers, claimed, deferredEdgeInterception && downOnEdge);
                 break;
             }
 
-            case MotionEvent.ACTION_UP: {
-                if (isDragging) {
-                    final int pointerIndex = MotionEventCompat.findPointerIndex(ev, mActivePointerId);
-                    final float x = MotionEventCompat.getX(ev, pointerIndex);
-                    final float y = MotionEventCompat.getY(ev, pointerIndex);
-
-                    boolean handleClicked = false;
-                    boolean handlePressed = navigationMenu.getHandleRect().contains((int) x, (int) y);
-                    if (handlePressed && mHandleClickedX >= 0 && mHandleClickedY >= 0) {
-
-                        double clickDistance = Math.sqrt(Math.pow(x - mHandleClickedX, 2) + Math.pow(y - mHandleClickedY, 2));
-                        if (DEBUG_LOG) {
-                            Log.v(LOG_TAG, String.format("dis: %f x: %f y: %f old x: %f old y: %f", clickDistance, x, y, mHandleClickedX,
-                                            mHandleClickedY));
-                        }
-                        if (clickDistance < activeXDiff) {
-                            isDragging = false;
-                            ivHandle.performClick();
-                            handleClicked = true;
-                        }
-                        mHandleClickedX = -1f;
-                        mHandleClickedY = -1f;
-                    }
-
-                    if (handleClicked == false) {
-                        velocityTracker.addMovement(ev);
-                        mActivePointerId = INVALID_POINTER_ID;
-                        velocityTracker.computeCurrentVelocity(1);
-                        velocityX = velocityTracker.getXVelocity();
-                        if (Math.abs(velocityX) < MIN_VELOCITY) {
-                            if (velocityX > 0) {
-                                velocityX = MIN_VELOCITY;
-                            } else {
-                                velocityX = -MIN_VELOCITY;
-                            }
-                        }
-                        velocityTracker.recycle();
-                        velocityTracker = null;
-                        if (velocityX < 0) {
-                            hideMenuWithVelocity();
-                            // Log.d("HIDE MENU", String.format("HIDE MENU v=%.2f dx=%f", velocityX,
-                            // mPosX));
-                        } else if (velocityX > 0) {
-                            showMenuWithVelocity();
-                            // Log.d("SHOW MENU", String.format("SHOW MENU v=%.2f dx=%f", velocityX,
-                            // mPosX));
-                        } else {
-                            // Log.d("UNDEFINED", "velocity is zero");
-                            hideMenuWithVelocity();
-                        }
-                        isDragging = false;
-                    }
-                    retValue = true;
-                }
+            case MotionEvent.ACTION_MOVE:
+                retValue = gestureTracker.onMove(touchPointers);
                 break;
-            }
 
-            case MotionEvent.ACTION_CANCEL: {
-                mActivePointerId = INVALID_POINTER_ID;
-                isDragging = false;
-                retValue = true;
+            case MotionEvent.ACTION_UP:
+                // the tracker applies the remaining move itself
+                cancelLayoutUpdate();
+                retValue = gestureTracker.onUp(touchPointers);
                 break;
-            }
-
-            case MotionEvent.ACTION_POINTER_UP: {
 
-                final int pointerIndex = MotionEventCompat.getActionIndex(ev);
-                final int pointerId = MotionEventCompat.getPointerId(ev, pointerIndex);
+            case MotionEvent.ACTION_CANCEL:
+                cancelLayoutUpdate();
+                retValue = gestureTracker.onCancel();
+                break;
 
-                if (pointerId == mActivePointerId) {
-                    // This was our active pointer going up. Choose a new
-                    // active pointer and adjust accordingly.
-                    final int newPointerIndex = pointerIndex == 0 ? 1 : 0;
-                    mLastTouchX = MotionEventCompat.getX(ev, newPointerIndex);
-                    mLastTouchY = MotionEventCompat.getY(ev, newPointerIndex);
-                    mActivePointerId = MotionEventCompat.getPointerId(ev, newPointerIndex);
-                    retValue = true;
-                }
+            case MotionEvent.ACTION_POINTER_UP:
+                retValue = gestureTracker.onPointerUp(touchPointers);
                 break;
-            }
         }
+        touchPointers.setEvent(null);
         if (DEBUG_LOG) {
             Log.v("onTouchEvent", "Touch val " + String.valueOf(retValue) + " action: " + ev.getAction());
         }
@@ -504,76 +1532,145 @@ public class SideNavigationView extends LinearLayout {
     protected void showMenuWithVelocity() {
         float fromXDelta = navigationMenu.getTransX();
         float toXDelta = 0;
-        long durationMillis = getAnimDurationFromVelocity(toXDelta - fromXDelta);
-        if (durationMillis > MAX_SHOW_ANIMATION_TIME || durationMillis < 0) {
-            durationMillis = MAX_SHOW_ANIMATION_TIME;
-        }
+        long durationMillis = DrawerAnimator.getDurationFromVelocity(toXDelta - fromXDelta, velocityX, MAX_SHOW_ANIMATION_TIME);
         if (DEBUG_LOG) {
             Log.d("showMenuWithVelocity", String.format("dur: %dms fromX: %f toX: %f", durationMillis, fromXDelta, toXDelta));
         }
-        navigationMenu.animTranslation(fromXDelta, toXDelta, durationMillis);
+        setDrawerState(DrawerState.SETTLING);
+        Interpolator interpolator = new DecelerateInterpolator();
+        navigationMenu.animTranslation(fromXDelta, toXDelta, durationMillis, new AnimationListener() {
+
+            @Override
+            public void onAnimationStop() {
+                setDrawerState(DrawerState.OPENED);
+            }
+
+            @Override
+            public void onAnimationStart() {}
+        }, interpolator);
     }
 
     protected void hideMenuWithVelocity() {
         float fromXDelta = navigationMenu.getTransX();
         float toXDelta = -navigationMenu.getContentWidth();
-        long durationMillis = getAnimDurationFromVelocity(toXDelta - fromXDelta);
-        if (durationMillis > MAX_HIDE_ANIMATION_TIME || durationMillis < 0) {
-            durationMillis = MAX_HIDE_ANIMATION_TIME;
-        }
+        long durationMillis = DrawerAnimator.getDurationFromVelocity(toXDelta - fromXDelta, velocityX, MAX_HIDE_ANIMATION_TIME);
         if (DEBUG_LOG) {
             Log.d("hideMenuWithVelocity", String.format("dur: %dms fromX: %f toX: %f", durationMillis, fromXDelta, toXDelta));
         }
+        setDrawerState(DrawerState.SETTLING);
+        Interpolator interpolator = new LinearInterpolator();
         navigationMenu.animTranslation(fromXDelta, toXDelta, durationMillis, new AnimationListener() {
 
             @Override
             public void onAnimationStop() {
                 setDrawerInvisible();
+                setDrawerState(DrawerState.CLOSED);
             }
 
             @Override
             public void onAnimationStart() {}
-        }, new LinearInterpolator());
+        }, interpolator);
     }
 
     protected void setDrawerVisible() {
+        ensureMenuContent();
         navigationMenu.setVisibility(View.VISIBLE);
-        navigationMenu.showMenuContent();
+        // content stays visible, only keyboard focus is blocked while the drawer is closed
+        menuContent.setDescendantFocusability(ViewGroup.FOCUS_AFTER_DESCENDANTS);
         ViewHelper.setAlpha(outsideView, 0f);
         outsideView.setVisibility(View.VISIBLE);
-        if (isDragging) {
+        if (isDragging()) {
             updateLayout();
         }
     }
 
     protected void setDrawerInvisible(){
-        navigationMenu.hideMenuContent();
+        menuContent.setDescendantFocusability(ViewGroup.FOCUS_BLOCK_DESCENDANTS);
         outsideView.setVisibility(View.GONE);
         ViewHelper.setAlpha(outsideView, 0f);
     }
 
-    private long getAnimDurationFromVelocity(float distance) {
-        return (long) (Math.abs(distance) / velocityX);
+    private void setDrawerState(DrawerState state) {
+        // the listener gets the final occlusion before the state, e.g. OPENED
+        updateOccludedFraction();
+        if (drawerState == state) {
+            return;
+        }
+        boolean wasClosed = drawerState == DrawerState.CLOSED;
+        drawerState = state;
+        if (DEBUG_LOG) {
+            Log.d(LOG_TAG, "drawer state: " + state);
+        }
+        if (state == DrawerState.CLOSED) {
+            setMenuContentAccessible(false);
+        } else if (wasClosed) {
+            setMenuContentAccessible(true);
+        }
+        if (drawerStateListener != null) {
+            drawerStateListener.onDrawerStateChanged(state);
+        }
+    }
+
+    /**
+     * Hides the content of the closed drawer from accessibility services, it stays visible to keep
+     * the open and close cheap.
+     */
+    private void setMenuContentAccessible(boolean accessible) {
+        int mode;
+        if (accessible) {
+            mode = ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_AUTO;
+        } else if (android.os.Build.VERSION.SDK_INT >= 19) {
+            mode = IMPORTANT_FOR_ACCESSIBILITY_NO_HIDE_DESCENDANTS;
+        } else {
+            // descendants can't be hidden before KitKat, hide at least the container
+            mode = ViewCompat.IMPORTANT_FOR_ACCESSIBILITY_NO;
+        }
+        ViewCompat.setImportantForAccessibility(menuContent, mode);
+    }
+
+    private void updateOccludedFraction() {
+        int width = getWidth();
+        if (width == 0 || navigationMenu.getContentWidth() == 0) {
+            return;
+        }
+        float fraction = 0f;
+        if (!docked) {
+            // docked drawer doesn't cover the content
+            fraction = (navigationMenu.getContentWidth() + navigationMenu.getTransX()) / width;
+            fraction = Math.max(0f, Math.min(1f, fraction));
+        }
+        if (fraction != occludedFraction) {
+            occludedFraction = fraction;
+            if (drawerStateListener != null) {
+                drawerStateListener.onOcclusionChanged(fraction);
+            }
+        }
+    }
+
+    private boolean isDragging() {
+        return gestureTracker != null && gestureTracker.isDragging();
+    }
+
+    /**
+     * Schedules applying of accumulated move deltas right before the next frame is drawn.
+     */
+    private void scheduleLayoutUpdate() {
+        if (!layoutUpdatePending) {
+            layoutUpdatePending = true;
+            ViewCompat.postOnAnimation(this, layoutUpdater);
+        }
+    }
+
+    private void cancelLayoutUpdate() {
+        removeCallbacks(layoutUpdater);
+        layoutUpdatePending = false;
     }
 
     private void updateLayout() {
         switch (mMode) {
             case LEFT:
-                if (navigationMenu.getTransX() + mPosX >= 0) {
-                    if (mPosX > 0f) {
-                        navigationMenu.setTransX(0f);
-                    } else {
-                        navigationMenu.moveBy(mPosX, 0);
-                    }
-                } else if (navigationMenu.getTransX() + mPosX < -navigationMenu.getContentWidth()) {
-                    navigationMenu.setTransX(-navigationMenu.getContentWidth());
-                } else {
-                    navigationMenu.moveBy(mPosX, 0);
-                }
-                if (DEBUG_LOG) {
-                    Log.v("translation", navigationMenu.getContentWidth() + " " + navigationMenu.getTransX());
-                }
-                mPosX = 0;
+                // keep the drawer in range [-contentWidth, 0]
+                gestureTracker.applyPendingMove();
                 // ViewHelper.setAlpha(outsideView, navigationMenu.getPercentOpen());
 
                 break;
@@ -582,4 +1679,65 @@ public class SideNavigationView extends LinearLayout {
                 break;
         }
     }
+
+    /**
+     * Passes pointers of a {@link MotionEvent} to {@link DrawerGestureTracker}.
+     */
+    private static class MotionEventPointers implements DrawerGestureTracker.Pointers {
+        private MotionEvent ev;
+
+        void setEvent(MotionEvent ev) {
+            this.ev = ev;
+        }
+
+        @Override
+        public int getPointerCount() {
+            return MotionEventCompat.getPointerCount(ev);
+        }
+
+        @Override
+        public int getPointerId(int pointerIndex) {
+            return MotionEventCompat.getPointerId(ev, pointerIndex);
+        }
+
+        @Override
+        public int findPointerIndex(int pointerId) {
+            return MotionEventCompat.findPointerIndex(ev, pointerId);
+        }
+
+        @Override
+        public int getActionIndex() {
+            return MotionEventCompat.getActionIndex(ev);
+        }
+
+        @Override
+        public float getX(int pointerIndex) {
+            return MotionEventCompat.getX(ev, pointerIndex);
+        }
+
+        @Override
+        public float getY(int pointerIndex) {
+            return MotionEventCompat.getY(ev, pointerIndex);
+        }
+
+        @Override
+        public long getEventTime() {
+            return ev.getEventTime();
+        }
+
+        @Override
+        public int getHistorySize() {
+            return ev.getHistorySize();
+        }
+
+        @Override
+        public float getHistoricalX(int pointerIndex, int pos) {
+            return ev.getHistoricalX(pointerIndex, pos);
+        }
+
+        @Override
+        public long getHistoricalEventTime(int pos) {
+            return ev.getHistoricalEventTime(pos);
+        }
+    }
 }
@@ -0,0 +1,134 @@
+package com.devspark.sidenavigation;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+/**
+ * Process-wide cache of text layouts of the drawer item labels. Layouts are computed on the
+ * background thread, so measuring of the labels is not done on the UI thread when the drawer is
+ * opened for the first time. The template paint is never modified after the cache is created, every
+ * layout gets its own copy of it, since the layout keeps its paint and is drawn on the UI thread
+ * while other layouts are computed in the background.
+ */
+public class TextLayoutCache {
+    private static final int MAX_LAYOUTS = 128;
+
+    private static TextLayoutCache instance;
+
+    /**
+     * Callback notified on the UI thread, when the precomputed layout is ready.
+     */
+    public interface Callback {
+        public void onTextLayoutReady(CharSequence text, int width, Layout layout);
+    }
+
+    private final TextPaint paint;
+    private final float textSize;
+    private final int textColor;
+    private final int lineHeight;
+    private final LruCache<String, Layout> layouts = new LruCache<String, Layout>(MAX_LAYOUTS);
+
+    private TextLayoutCache(TextPaint paint) {
+        this.paint = paint;
+        this.textSize = paint.getTextSize();
+        this.textColor = paint.getColor();
+        // measured before the paint is handed over to the background thread
+        this.lineHeight = paint.getFontMetricsInt(null);
+    }
+
+    /**
+     * Returns the process-wide instance of the cache, using text style of the drawer items.
+     *
+     * @param context any context, used for getting the resources
+     * @return cache instance
+     */
+    public static synchronized TextLayoutCache getInstance(Context context) {
+        Resources res = context.getResources();
+        float textSize = res.getDimension(R.dimen.side_navigation_item_text_size);
+        int textColor = res.getColor(R.color.side_navigation_item_text_color);
+        if (instance == null || instance.textSize != textSize || instance.textColor != textColor) {
+            TextPaint paint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+            paint.density = res.getDisplayMetrics().density;
+            paint.setTextSize(textSize);
+            paint.setColor(textColor);
+            instance = new TextLayoutCache(paint);
+        }
+        return instance;
+    }
+
+    /**
+     * Returns height of the single line of the text, e.g. for views waiting for the layout.
+     *
+     * @return line height in pixels
+     */
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    /**
+     * Returns cached layout.
+     *
+     * @param text text of the layout
+     * @param width width of the layout in pixels
+     * @return cached layout or null if it wasn't computed yet
+     */
+    public Layout get(CharSequence text, int width) {
+        return layouts.get(getKey(text, width));
+    }
+
+    private Layout getOrCreate(CharSequence text, int width) {
+        String key = getKey(text, width);
+        Layout layout = layouts.get(key);
+        if (layout == null) {
+            layout = createLayout(text, width);
+            layouts.put(key, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Computes the layout on the background thread. The callback is invoked on the UI thread, also
+     * when the layout was already cached.
+     *
+     * @param text text of the layout
+     * @param width width of the layout in pixels
+     * @param callback callback notified when the layout is ready, may be null
+     */
+    public void precompute(final CharSequence text, final int width, final Callback callback) {
+        BackgroundExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Layout layout = getOrCreate(text, width);
+                if (callback != null) {
+                    BackgroundExecutor.postToMainThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            callback.onTextLayoutReady(text, width, layout);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Removes all cached layouts.
+     */
+    public void clear() {
+        layouts.evictAll();
+    }
+
+    private Layout createLayout(CharSequence text, int width) {
+        // the layout keeps the paint, the shared one must not be drawn on the UI thread
+        return new StaticLayout(text, new TextPaint(paint), Math.max(0, width), Layout.Alignment.ALIGN_NORMAL, 1f,
+                        0f, false);
+    }
+
+    private static String getKey(CharSequence text, int width) {
+        return width + ":" + text;
+    }
+}
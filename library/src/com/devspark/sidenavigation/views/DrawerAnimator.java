@@ -0,0 +1,162 @@
+package com.devspark.sidenavigation.views;
+
+import android.view.animation.AnimationUtils;
+import android.view.animation.Interpolator;
+
+import com.devspark.sidenavigation.views.TransformableDrawerLayout.AnimationListener;
+
+/**
+ * Computes the position of the drawer during translation animations. It doesn't depend on any
+ * view, the frames are produced by calling {@link #step(long)} with the time of the frame, so the
+ * animation can be driven frame by frame with any {@link Clock} (e.g. a simulated one in tests).
+ */
+public class DrawerAnimator {
+
+    /**
+     * Source of time used for the animation frames.
+     */
+    public interface Clock {
+        /**
+         * @return current time in milliseconds
+         */
+        public long currentTimeMillis();
+    }
+
+    /**
+     * Default clock, using {@link AnimationUtils#currentAnimationTimeMillis()}.
+     */
+    public static final Clock ANIMATION_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return AnimationUtils.currentAnimationTimeMillis();
+        }
+    };
+
+    private float fromX;
+    private float toX;
+    private float value;
+    private long startTime;
+    private long durationMs;
+    private Interpolator interpolator;
+    private AnimationListener listener;
+
+    private boolean running = false;
+    private boolean started = false;
+    private int frameCount = 0;
+
+    /**
+     * Calculates duration of the animation for given distance and velocity.
+     *
+     * @param distance distance in pixels
+     * @param velocity velocity in pixels per millisecond
+     * @param maxDurationMs upper limit of the duration
+     * @return duration in milliseconds, in range [0, maxDurationMs]
+     */
+    public static long getDurationFromVelocity(float distance, float velocity, long maxDurationMs) {
+        long durationMs = (long) (Math.abs(distance) / velocity);
+        if (durationMs > maxDurationMs || durationMs < 0) {
+            durationMs = maxDurationMs;
+        }
+        return durationMs;
+    }
+
+    /**
+     * Starts new animation, dropping the current one without notifying its listener.
+     *
+     * @param fromX start point for the animation in X-axis
+     * @param toX end point for the animation in X-axis
+     * @param durationMs animation duration in milliseconds
+     * @param startTime time of the animation start, in milliseconds of the used {@link Clock}
+     * @param interpolator interpolator used during the animation, linear if null
+     * @param listener listener notified about start and end of the animation, may be null
+     */
+    public void start(float fromX, float toX, long durationMs, long startTime, Interpolator interpolator,
+                    AnimationListener listener) {
+        this.fromX = fromX;
+        this.toX = toX;
+        this.value = fromX;
+        this.durationMs = durationMs;
+        this.startTime = startTime;
+        this.interpolator = interpolator;
+        this.listener = listener;
+        running = true;
+        started = false;
+        frameCount = 0;
+    }
+
+    /**
+     * Computes the frame of the animation for given time. The listener is notified about the start
+     * on the first frame and about the end, when the frame time reaches the end of the animation.
+     *
+     * @param currentTime time of the frame, in milliseconds of the used {@link Clock}
+     * @return true if the animation is still running after this frame
+     */
+    public boolean step(long currentTime) {
+        if (!running) {
+            return false;
+        }
+        frameCount++;
+        if (!started) {
+            started = true;
+            if (listener != null) {
+                listener.onAnimationStart();
+            }
+        }
+        float normalizedTime = durationMs > 0 ? (float) (currentTime - startTime) / durationMs : 1f;
+        normalizedTime = Math.max(0f, Math.min(1f, normalizedTime));
+        float interpolatedTime = interpolator != null ? interpolator.getInterpolation(normalizedTime) : normalizedTime;
+        value = fromX + (toX - fromX) * interpolatedTime;
+        if (normalizedTime >= 1f) {
+            running = false;
+            // the listener may start next animation
+            if (listener != null) {
+                listener.onAnimationStop();
+            }
+        }
+        return running;
+    }
+
+    /**
+     * Jumps to the end of the animation, notifying the listener.
+     */
+    public void finish() {
+        if (running) {
+            step(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Stops the animation at the current position without notifying the listener.
+     */
+    public void cancel() {
+        running = false;
+    }
+
+    /**
+     * @return true if the animation is running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @return position in X-axis computed for the last frame
+     */
+    public float getValue() {
+        return value;
+    }
+
+    /**
+     * @return end point of the last started animation in X-axis
+     */
+    public float getToX() {
+        return toX;
+    }
+
+    /**
+     * @return number of frames computed since the start of the last animation
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+}
@@ -0,0 +1,94 @@
+package com.devspark.sidenavigation.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.text.Layout;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.devspark.sidenavigation.TextLayoutCache;
+
+/**
+ * Lightweight label of the drawer item, drawing text layout precomputed by
+ * {@link TextLayoutCache} instead of measuring the text on the UI thread.
+ *
+ * Until the layout is ready, the label is measured with the known text width and the height of
+ * one line, nothing is drawn, and it is laid out again when the layout arrives.
+ */
+public class ItemLabelView extends View implements TextLayoutCache.Callback {
+    private TextLayoutCache textLayoutCache;
+    private CharSequence text;
+    private int textWidth;
+    private Layout textLayout;
+
+    public ItemLabelView(Context context) {
+        super(context);
+    }
+
+    public ItemLabelView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    /**
+     * Sets the text of the label. Its layout is taken from the cache or computed in the
+     * background.
+     *
+     * @param text text of the label
+     * @param width width of the text in pixels, excluding padding
+     * @param cache cache of the layouts
+     */
+    public void setText(CharSequence text, int width, TextLayoutCache cache) {
+        this.text = text;
+        this.textWidth = width;
+        this.textLayoutCache = cache;
+        textLayout = cache.get(text, width);
+        if (textLayout == null) {
+            cache.precompute(text, width, this);
+        }
+        setContentDescription(text);
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * @return text of the label
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    @Override
+    public void onTextLayoutReady(CharSequence text, int width, Layout layout) {
+        if (textLayout != null || text != this.text || width != textWidth) {
+            // already set, or the label has changed in the meantime
+            return;
+        }
+        textLayout = layout;
+        requestLayout();
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int textHeight = 0;
+        if (textLayout != null) {
+            textHeight = textLayout.getHeight();
+        } else if (text != null) {
+            // placeholder until the layout is computed in the background
+            textHeight = textLayoutCache.getLineHeight();
+        }
+        int width = getPaddingLeft() + getPaddingRight() + (text != null ? Math.max(0, textWidth) : 0);
+        int height = getPaddingTop() + getPaddingBottom() + textHeight;
+        setMeasuredDimension(resolveSize(width, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (textLayout != null) {
+            canvas.save();
+            canvas.translate(getPaddingLeft(), getPaddingTop());
+            textLayout.draw(canvas);
+            canvas.restore();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.devspark.sidenavigation.views;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+/**
+ * Animates the X translation of a view with the framework {@link ValueAnimator}, which is driven by
+ * Choreographer in sync with the display frames. It uses classes of API 16, so it may be loaded
+ * only on API 16 and above.
+ */
+class LayerTranslationAnimator {
+
+    /**
+     * Callback of the animation, called on the UI thread.
+     */
+    interface Callback {
+        /**
+         * Called on every frame, after the translation of the view is updated.
+         */
+        public void onTranslationUpdate();
+
+        /**
+         * Called when the animation reaches its end. Not called for canceled animations.
+         */
+        public void onTranslationEnd();
+    }
+
+    private final View view;
+    private final Callback callback;
+    private ValueAnimator animator;
+
+    private final ValueAnimator.AnimatorUpdateListener updateListener = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            if (animation != animator) {
+                return;
+            }
+            view.setTranslationX((Float) animation.getAnimatedValue());
+            callback.onTranslationUpdate();
+        }
+    };
+
+    private final Animator.AnimatorListener endListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (animation != animator) {
+                // canceled
+                return;
+            }
+            animator = null;
+            callback.onTranslationEnd();
+        }
+    };
+
+    LayerTranslationAnimator(View view, Callback callback) {
+        this.view = view;
+        this.callback = callback;
+    }
+
+    /**
+     * Starts the animation, the running one is canceled.
+     */
+    void start(float fromX, float toX, long durationMs, Interpolator interpolator) {
+        cancel();
+        view.setTranslationX(fromX);
+        animator = ValueAnimator.ofFloat(fromX, toX);
+        animator.setDuration(durationMs);
+        animator.setInterpolator(interpolator);
+        animator.addUpdateListener(updateListener);
+        animator.addListener(endListener);
+        animator.start();
+    }
+
+    /**
+     * Stops the animation at the current position, without calling the callback.
+     */
+    void cancel() {
+        if (animator != null) {
+            ValueAnimator canceled = animator;
+            animator = null;
+            canceled.cancel();
+        }
+    }
+}
@@ -8,21 +8,20 @@ import android.graphics.Canvas;
 import android.graphics.Matrix;
 import android.graphics.Rect;
 import android.os.Handler;
+import android.support.v4.view.ViewCompat;
 import android.util.AttributeSet;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.animation.Animation;
-import android.view.animation.AnimationUtils;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
-import android.view.animation.Transformation;
-import android.view.animation.TranslateAnimation;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 
 import com.devspark.sidenavigation.R;
 import com.devspark.sidenavigation.SideNavigationView;
+import com.nineoldandroids.view.ViewHelper;
 
 /**
  * A LinearLayout, that has possibility of being moved using transformation matrix. All changes
@@ -30,9 +29,9 @@ import com.devspark.sidenavigation.SideNavigationView;
  * {@link TransformableDrawerLayout#setTransX(float)},
  * {@link TransformableDrawerLayout#setTransY(float)} is applied using canvas transformation.
  *
- * If the layout is to be used (e.g. items in it clicked when transformed), the touch events
- * handling should be added, since current implementation doesn't translate touch events by applied
- * transformations.
+ * Touch events are translated by the applied transformation before being dispatched to the
+ * children, so the content of the drawer is interactive at any position, without changing its
+ * visibility.
  *
  * @author Damian Walczak
  *
@@ -57,6 +56,18 @@ public class TransformableDrawerLayout extends LinearLayout {
         public void onProgress(float progress);
     }
 
+    /**
+     * Interface allowing the listener to get durations of the first measure, layout and draw of the
+     * drawer, e.g. for startup time instrumentation. Durations are given in nanoseconds.
+     */
+    public interface FirstFrameTimingListener {
+        public void onFirstMeasure(long durationNanos);
+
+        public void onFirstLayout(long durationNanos);
+
+        public void onFirstDraw(long durationNanos);
+    }
+
     public static final boolean DEBUG_LOG = SideNavigationView.DEBUG_LOG;
 
     protected Handler handler = new Handler();
@@ -66,13 +77,43 @@ public class TransformableDrawerLayout extends LinearLayout {
 
     private OpenningProgressListener openningProgressListener;
 
-    private TranslateAnimation translateAnimation;
-    private Transformation transformation = new Transformation();
+    private DrawerAnimator animator = new DrawerAnimator();
+    private DrawerAnimator.Clock animationClock = DrawerAnimator.ANIMATION_CLOCK;
+
+    private boolean propertyAnimationEnabled = false;
+    private boolean propertyAnimationRunning = false;
+    private LayerTranslationAnimator propertyAnimator;
+    private float propertyAnimationToX;
+    private AnimationListener propertyAnimationListener;
+
+    private int laidOutContentWidth = -1;
+
+    private boolean docked = false;
+
+    private FirstFrameTimingListener firstFrameTimingListener;
+    private boolean measuredOnce = false;
+    private boolean laidOutOnce = false;
+    private boolean drawnOnce = false;
 
     private View contentView;
     private View shadowView;
     private ImageView ivHandle;
 
+    private LayerTranslationAnimator.Callback propertyAnimatorCallback = new LayerTranslationAnimator.Callback() {
+        @Override
+        public void onTranslationUpdate() {
+            // the drawer is not redrawn, so the progress is reported from here
+            if (propertyAnimationRunning && openningProgressListener != null) {
+                openningProgressListener.onProgress(getPercentOpen());
+            }
+        }
+
+        @Override
+        public void onTranslationEnd() {
+            endPropertyAnimation();
+        }
+    };
+
     private Runnable progressReporter = new Runnable() {
         @Override
         public void run() {
@@ -109,6 +150,101 @@ public class TransformableDrawerLayout extends LinearLayout {
         this.openningProgressListener = null;
     }
 
+    /**
+     * Sets the source of time for the translation animations. Allows driving the animations with
+     * simulated time, e.g. in tests. Animations are always computed by {@link DrawerAnimator} while
+     * a clock other than {@link DrawerAnimator#ANIMATION_CLOCK} is set, property animations are
+     * not used, since they take the time from the system.
+     *
+     * @param clock clock to be used, {@link DrawerAnimator#ANIMATION_CLOCK} by default
+     */
+    public void setAnimationClock(DrawerAnimator.Clock clock) {
+        animationClock = clock != null ? clock : DrawerAnimator.ANIMATION_CLOCK;
+    }
+
+    /**
+     * Enables translation animations of the view translation performed with the framework
+     * {@code ValueAnimator} on a hardware layer. Such animation doesn't redraw the drawer on every
+     * frame, only the layer is moved, so the cost of a frame is lower. Its frames are timed by
+     * Choreographer in sync with the display, but they are still computed on the UI thread, so it
+     * stalls as well when the UI thread is busy. Available on API 16 and above and only with the
+     * default animation clock, otherwise the animation is drawn in {@link #onDraw(Canvas)}.
+     * Progress listener is notified on every frame of both kinds of animations.
+     *
+     * @param enabled true to use property animations where available
+     */
+    public void setPropertyAnimationEnabled(boolean enabled) {
+        propertyAnimationEnabled = enabled && android.os.Build.VERSION.SDK_INT >= 16;
+    }
+
+    /**
+     * Indicates if the translation animation is currently performed as a property animation.
+     *
+     * @return true if property animation is running
+     */
+    public boolean isPropertyAnimationRunning() {
+        return propertyAnimationRunning;
+    }
+
+    /**
+     * Returns the animator computing translation animations of the drawer.
+     *
+     * @return drawer animator
+     */
+    public DrawerAnimator getAnimator() {
+        return animator;
+    }
+
+    /**
+     * Sets the docked mode of the drawer. Docked drawer is laid out as a static view: it is not
+     * translated, the handle is hidden, touch events are not translated and no progress is reported.
+     * Leaving the docked mode moves the drawer to the closed position.
+     *
+     * @param docked true to dock the drawer
+     */
+    public void setDocked(boolean docked) {
+        if (this.docked == docked) {
+            return;
+        }
+        cancelAnimation();
+        handler.removeCallbacks(progressReporter);
+        View handle = findViewById(R.id.side_navigation_handle);
+        if (handle != null) {
+            handle.setVisibility(docked ? View.GONE : View.VISIBLE);
+        }
+        if (docked) {
+            applyTransX(0f);
+        } else {
+            // closed position is set again on the next layout, the content may not be laid out yet
+            laidOutContentWidth = -1;
+            if (contentView != null) {
+                applyTransX(-getContentWidth());
+            }
+        }
+        this.docked = docked;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Indicates if the drawer is docked.
+     *
+     * @return true if the drawer is docked
+     * @see #setDocked(boolean)
+     */
+    public boolean isDocked() {
+        return docked;
+    }
+
+    /**
+     * Register a callback to get durations of the first measure, layout and draw of the drawer.
+     *
+     * @param listener the callback that will run, or null to remove it
+     */
+    public void setFirstFrameTimingListener(FirstFrameTimingListener listener) {
+        firstFrameTimingListener = listener;
+    }
+
     /**
      * Translate the drawer layout by given values. <br>
      * Translation is applied using {@link Matrix#preTranslate(float, float)} method.
@@ -117,8 +253,12 @@ public class TransformableDrawerLayout extends LinearLayout {
      * @param dy difference of the y coordinate, that will be applied with the transformation
      */
     public void moveBy(float dx, float dy) {
+        cancelPropertyAnimation();
+        translationMatrix.getValues(matrixValues);
+        float oldTransX = matrixValues[Matrix.MTRANS_X];
+        float oldTransY = matrixValues[Matrix.MTRANS_Y];
         translationMatrix.preTranslate(dx, dy);
-        invalidate();
+        invalidateMoved(oldTransX, oldTransY);
     }
 
     /**
@@ -128,10 +268,37 @@ public class TransformableDrawerLayout extends LinearLayout {
      * @param transX translation of the x coordinate for the view.
      */
     public void setTransX(float transX) {
+        cancelPropertyAnimation();
+        translationMatrix.getValues(matrixValues);
+        float oldTransX = matrixValues[Matrix.MTRANS_X];
+        float oldTransY = matrixValues[Matrix.MTRANS_Y];
+        applyTransX(transX);
+        invalidateMoved(oldTransX, oldTransY);
+    }
+
+    private void applyTransX(float transX) {
         translationMatrix.getValues(matrixValues);
         matrixValues[Matrix.MTRANS_X] = transX;
         translationMatrix.setValues(matrixValues);
-        invalidate();
+    }
+
+    /**
+     * Invalidates only the union of the parts of the view covered by the drawer (with its shadow
+     * and handle) before and after the translation, instead of the whole view.
+     */
+    private void invalidateMoved(float oldTransX, float oldTransY) {
+        translationMatrix.getValues(matrixValues);
+        float newTransX = matrixValues[Matrix.MTRANS_X];
+        float newTransY = matrixValues[Matrix.MTRANS_Y];
+        int width = getWidth();
+        int height = getHeight();
+        int left = (int) Math.floor(Math.max(0f, Math.min(oldTransX, newTransX)));
+        int top = (int) Math.floor(Math.max(0f, Math.min(oldTransY, newTransY)));
+        int right = (int) Math.ceil(Math.min(width, Math.max(oldTransX, newTransX) + width));
+        int bottom = (int) Math.ceil(Math.min(height, Math.max(oldTransY, newTransY) + height));
+        if (right > left && bottom > top) {
+            invalidate(left, top, right, bottom);
+        }
     }
 
     /**
@@ -154,6 +321,9 @@ public class TransformableDrawerLayout extends LinearLayout {
      */
     public float getTransX() {
         translationMatrix.getValues(matrixValues);
+        if (propertyAnimationRunning) {
+            return matrixValues[Matrix.MTRANS_X] + ViewHelper.getTranslationX(this);
+        }
         return matrixValues[Matrix.MTRANS_X];
     }
 
@@ -239,35 +409,163 @@ public class TransformableDrawerLayout extends LinearLayout {
      */
     public void animTranslation(float fromX, float toX, long durationMs, final AnimationListener listener, Interpolator interpolator) {
         // Log.d("animTranslation", fromX + " " + toX);
-        translateAnimation = new TranslateAnimation(fromX, toX, 0, 0);
-        translateAnimation.setDuration(durationMs);
-        translateAnimation.setInterpolator(interpolator == null ? new DecelerateInterpolator() : interpolator);
-        translateAnimation.setFillAfter(true);
-        translateAnimation.setAnimationListener(new Animation.AnimationListener() {
-
-            @Override
-            public void onAnimationStart(Animation animation) {
-                if (listener != null) {
-                    listener.onAnimationStart();
-                }
-            }
+        cancelPropertyAnimation();
+        if (propertyAnimationEnabled && animationClock == DrawerAnimator.ANIMATION_CLOCK) {
+            startPropertyAnimation(fromX, toX, durationMs, listener, interpolator == null ? new DecelerateInterpolator()
+                            : interpolator);
+            return;
+        }
+        animator.start(fromX, toX, durationMs, animationClock.currentTimeMillis(),
+                        interpolator == null ? new DecelerateInterpolator() : interpolator, new AnimationListener() {
+
+                            @Override
+                            public void onAnimationStart() {
+                                if (listener != null) {
+                                    listener.onAnimationStart();
+                                }
+                            }
+
+                            @Override
+                            public void onAnimationStop() {
+                                // apply final position before the listener is notified
+                                applyTransX(animator.getValue());
+                                if (listener != null) {
+                                    listener.onAnimationStop();
+                                }
+                            }
+                        });
+        invalidate();
+    }
 
-            @Override
-            public void onAnimationRepeat(Animation animation) {
-            }
+    /**
+     * Immediately finishes currently running translation animation (if any), moving the drawer to
+     * its final position and notifying the animation listener.
+     */
+    public void finishAnimation() {
+        if (propertyAnimationRunning) {
+            propertyAnimator.cancel();
+            endPropertyAnimation();
+        }
+        if (animator.isRunning()) {
+            animator.finish();
+            invalidate();
+        }
+    }
 
-            @Override
-            public void onAnimationEnd(Animation animation) {
-                translateAnimation = null;
-                if (listener != null) {
-                    listener.onAnimationStop();
-                }
-            }
-        });
-        int parentWidth = 0, parentHeight = 0;
-        translateAnimation.setStartTime(AnimationUtils.currentAnimationTimeMillis());
-        translateAnimation.initialize(getWidth(), getHeight(), parentWidth, parentHeight);
+    /**
+     * Stops currently running translation animation (if any) at the current position, without
+     * notifying the animation listener.
+     */
+    public void cancelAnimation() {
+        cancelPropertyAnimation();
+        animator.cancel();
+    }
+
+    /**
+     * Returns end point of the running translation animation.
+     *
+     * @return end point in X-axis, or current translation if no animation is running
+     */
+    public float getAnimationTargetX() {
+        if (propertyAnimationRunning) {
+            return propertyAnimationToX;
+        }
+        if (animator.isRunning()) {
+            return animator.getToX();
+        }
+        return getTransX();
+    }
+
+    /**
+     * Moves the drawer to the frame of the running translation animation computed for the current
+     * time of the animation clock. The frames are computed on every draw, this method allows driving
+     * the animation frame by frame with a simulated clock, see
+     * {@link #setAnimationClock(DrawerAnimator.Clock)}. Property animations are not affected.
+     *
+     * @return true if the animation is still running after this frame
+     */
+    public boolean stepAnimation() {
+        if (!animator.isRunning()) {
+            return false;
+        }
+        boolean running = stepAnimator();
         invalidate();
+        return running;
+    }
+
+    private boolean stepAnimator() {
+        if (animator.step(animationClock.currentTimeMillis())) {
+            applyTransX(animator.getValue());
+        }
+        // listener of the finished animation may have started the next one
+        return animator.isRunning();
+    }
+
+    /**
+     * Indicates if the translation animation is running.
+     *
+     * @return true if the drawer is animating
+     */
+    public boolean isAnimating() {
+        return animator.isRunning() || propertyAnimationRunning;
+    }
+
+    private void startPropertyAnimation(float fromX, float toX, long durationMs, AnimationListener listener,
+                    Interpolator interpolator) {
+        animator.cancel();
+        // the whole drawer is drawn into the layer at the matrix origin, the layer is moved with the
+        // view translation
+        applyTransX(0f);
+        ViewHelper.setTranslationX(this, fromX);
+        propertyAnimationToX = toX;
+        propertyAnimationListener = listener;
+        propertyAnimationRunning = true;
+        ViewCompat.setLayerType(this, ViewCompat.LAYER_TYPE_HARDWARE, null);
+        invalidate();
+        if (listener != null) {
+            listener.onAnimationStart();
+        }
+        if (propertyAnimator == null) {
+            propertyAnimator = new LayerTranslationAnimator(this, propertyAnimatorCallback);
+        }
+        propertyAnimator.start(fromX, toX, durationMs, interpolator);
+    }
+
+    /**
+     * Stops the property animation at the current position, without notifying the listener.
+     */
+    private void cancelPropertyAnimation() {
+        if (propertyAnimationRunning) {
+            float transX = getTransX();
+            propertyAnimationRunning = false;
+            propertyAnimationListener = null;
+            propertyAnimator.cancel();
+            applyTransX(transX);
+            ViewHelper.setTranslationX(this, 0f);
+            ViewCompat.setLayerType(this, ViewCompat.LAYER_TYPE_NONE, null);
+        }
+    }
+
+    /**
+     * Moves the final position of the property animation to the matrix and notifies the listener.
+     */
+    private void endPropertyAnimation() {
+        if (!propertyAnimationRunning) {
+            return;
+        }
+        propertyAnimationRunning = false;
+        applyTransX(propertyAnimationToX);
+        ViewHelper.setTranslationX(this, 0f);
+        ViewCompat.setLayerType(this, ViewCompat.LAYER_TYPE_NONE, null);
+        invalidate();
+        if (openningProgressListener != null) {
+            openningProgressListener.onProgress(getPercentOpen());
+        }
+        AnimationListener listener = propertyAnimationListener;
+        propertyAnimationListener = null;
+        if (listener != null) {
+            listener.onAnimationStop();
+        }
     }
 
     /**
@@ -290,8 +588,8 @@ public class TransformableDrawerLayout extends LinearLayout {
     }
 
     /**
-     * Hides content of the menu. Necessary when menu is closed, so all the buttons etc. are not
-     * possible to be clicked.
+     * Hides content of the menu. Not needed for closing of the menu, since touch events are
+     * translated together with the content, so it can't be clicked when it is moved out of the view.
      *
      * @see #showMenuContent()
      */
@@ -305,27 +603,93 @@ public class TransformableDrawerLayout extends LinearLayout {
         contentView = findViewById(R.id.side_navigation_content);
         shadowView = findViewById(R.id.shadow);
         ivHandle = (ImageView) findViewById(R.id.side_navigation_handle);
-        hideMenuContent();
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (docked) {
+            return super.dispatchTouchEvent(ev);
+        }
+        // the children are drawn with the matrix applied, translate the event the same way in place
+        translationMatrix.getValues(matrixValues);
+        float transX = matrixValues[Matrix.MTRANS_X];
+        float transY = matrixValues[Matrix.MTRANS_Y];
+        ev.offsetLocation(-transX, -transY);
+        boolean handled = super.dispatchTouchEvent(ev);
+        ev.offsetLocation(transX, transY);
+        return handled;
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        handler.removeCallbacks(progressReporter);
+        finishAnimation();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (firstFrameTimingListener == null || measuredOnce) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        long start = System.nanoTime();
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        measuredOnce = true;
+        firstFrameTimingListener.onFirstMeasure(System.nanoTime() - start);
     }
 
     @Override
     protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (firstFrameTimingListener == null || laidOutOnce) {
+            layoutDrawer(changed, l, t, r, b);
+            return;
+        }
+        long start = System.nanoTime();
+        layoutDrawer(changed, l, t, r, b);
+        laidOutOnce = true;
+        firstFrameTimingListener.onFirstLayout(System.nanoTime() - start);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (firstFrameTimingListener == null || drawnOnce) {
+            super.draw(canvas);
+            return;
+        }
+        long start = System.nanoTime();
+        super.draw(canvas);
+        drawnOnce = true;
+        firstFrameTimingListener.onFirstDraw(System.nanoTime() - start);
+    }
+
+    private void layoutDrawer(boolean changed, int l, int t, int r, int b) {
         super.onLayout(changed, l, t, r, b);
-        // initialize the position of the drawer to be outside visible part of the screen.
-        setTransX(-getContentWidth());
+        if (propertyAnimationRunning || docked) {
+            return;
+        }
+        int contentWidth = getContentWidth();
+        if (laidOutContentWidth < 0 || getTransX() <= -laidOutContentWidth) {
+            // initialize the position of the drawer to be outside visible part of the screen.
+            setTransX(-contentWidth);
+        }
+        // otherwise the drawer is (partially) opened and keeps its position
+        laidOutContentWidth = contentWidth;
     }
 
     @Override
     protected void onDraw(Canvas canvas) {
-        long currentTime = AnimationUtils.currentAnimationTimeMillis();
-        if (translateAnimation != null) {
-            translateAnimation.getTransformation(currentTime, transformation);
-            transformation.getMatrix().getValues(matrixValues);
-            translationMatrix.setValues(matrixValues);
+        if (docked) {
+            super.onDraw(canvas);
+            return;
+        }
+        if (animator.isRunning()) {
+            if (stepAnimator()) {
+                invalidate();
+            }
             if (DEBUG_LOG) {
                 Log.v("onDraw", translationMatrix.toString());
             }
-            invalidate();
         }
         canvas.concat(translationMatrix);
         // canvas.drawPaint(paint);
@@ -0,0 +1,603 @@
+package com.devspark.sidenavigation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.junit.Test;
+
+/**
+ * Property based test of {@link DrawerGestureTracker}. Randomized multi-pointer gesture sequences
+ * (including lost and malformed events) are generated from seeds and run in parallel with a
+ * fork-join pool. After every event the following invariants are checked:
+ * <ul>
+ * <li>translation of the drawer stays within [-contentWidth, 0],</li>
+ * <li>no exception is thrown,</li>
+ * <li>the drag terminates: no gesture is tracked after ACTION_UP or ACTION_CANCEL, and the host is
+ * never asked to settle the drawer while the gesture is still tracked,</li>
+ * <li>cost of an event is bounded: number of calls to the host per event is limited and the average
+ * time of an event stays below {@link #MAX_AVERAGE_NANOS_PER_EVENT}.</li>
+ * </ul>
+ * A failure reports the seed of the sequence, running {@code main} with that seed and count 1
+ * reproduces it. {@code main} runs a million sequences by default:
+ *
+ * <pre>
+ * java com.devspark.sidenavigation.GestureFuzzerTest [sequences] [base seed]
+ * </pre>
+ */
+public class GestureFuzzerTest {
+    private static final int ACTION_DOWN = 0;
+    private static final int ACTION_UP = 1;
+    private static final int ACTION_MOVE = 2;
+    private static final int ACTION_CANCEL = 3;
+    private static final int ACTION_POINTER_DOWN = 5;
+    private static final int ACTION_POINTER_UP = 6;
+
+    private static final int MAX_POINTERS = 5;
+    private static final int MAX_HISTORY = 40;
+    private static final int MAX_EVENTS_PER_SEQUENCE = 300;
+    private static final int SEQUENCES_PER_TASK = 1000;
+    private static final int MAX_HOST_CALLS_PER_EVENT = 10;
+    private static final long MAX_AVERAGE_NANOS_PER_EVENT = 50 * 1000;
+
+    private static final int TOUCH_SLOP = 16;
+    private static final int ACTIVE_MARGIN = 30;
+    private static final int HANDLE_WIDTH = 40;
+    private static final int HANDLE_HEIGHT = 80;
+
+    @Test
+    public void randomGesturesKeepInvariants() {
+        Result result = run(20130521L, 50000);
+        if (result.failure != null) {
+            fail(result.failureMessage());
+        }
+        assertTrue("average event time " + result.averageNanosPerEvent() + " ns",
+                        result.averageNanosPerEvent() <= MAX_AVERAGE_NANOS_PER_EVENT);
+    }
+
+    @Test
+    public void batchedSamplesDecideTheReleaseVelocity() {
+        FakeHost host = new FakeHost(300, -300f, 1000);
+        DrawerGestureTracker tracker = new DrawerGestureTracker(host, TOUCH_SLOP, ACTIVE_MARGIN);
+        host.tracker = tracker;
+        FakeEvent ev = new FakeEvent();
+        ev.count = 1;
+        tracker.onDown(ev, true, false);
+
+        // fling at 3 px/ms during the last 100 ms, reported at 240 Hz in a single batched event
+        ev.historySize = 24;
+        for (int i = 0; i < ev.historySize; i++) {
+            ev.historyTimes[i] = 104 + i * 4;
+            ev.historyXs[i][0] = (ev.historyTimes[i] - 100) * 3f;
+        }
+        ev.time = 200;
+        ev.xs[0] = 300f;
+        tracker.onMove(ev);
+        ev.historySize = 0;
+        tracker.onUp(ev);
+
+        // without the batched samples there is no movement within the velocity window
+        assertTrue(host.releasedOpen);
+        assertEquals(3f, host.releaseVelocity, 0.01f);
+    }
+
+    public static void main(String[] args) {
+        int sequences = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        long baseSeed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        long start = System.nanoTime();
+        Result result = run(baseSeed, sequences);
+        long millis = (System.nanoTime() - start) / 1000000;
+        System.out.println("base seed " + baseSeed + ": " + result.sequences + " sequences, " + result.events + " events in "
+                        + millis + " ms on " + Runtime.getRuntime().availableProcessors() + " cores, "
+                        + result.averageNanosPerEvent() + " ns per event");
+        if (result.failure != null) {
+            System.out.println(result.failureMessage());
+            result.failure.printStackTrace(System.out);
+            System.exit(1);
+        }
+        if (result.averageNanosPerEvent() > MAX_AVERAGE_NANOS_PER_EVENT) {
+            System.out.println("average event time above " + MAX_AVERAGE_NANOS_PER_EVENT + " ns");
+            System.exit(1);
+        }
+    }
+
+    static Result run(long baseSeed, int sequences) {
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            return pool.invoke(new FuzzTask(baseSeed, 0, sequences));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Aggregated result of the sequences, keeping the failure with the lowest seed.
+     */
+    static class Result {
+        long sequences;
+        long events;
+        long nanos;
+        long failedSeed;
+        Throwable failure;
+
+        long averageNanosPerEvent() {
+            return events > 0 ? nanos / events : 0;
+        }
+
+        String failureMessage() {
+            return "sequence with seed " + failedSeed + " failed: " + failure;
+        }
+
+        Result merge(Result other) {
+            sequences += other.sequences;
+            events += other.events;
+            nanos += other.nanos;
+            if (other.failure != null && (failure == null || other.failedSeed < failedSeed)) {
+                failure = other.failure;
+                failedSeed = other.failedSeed;
+            }
+            return this;
+        }
+    }
+
+    private static class FuzzTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final long baseSeed;
+        private final int from;
+        private final int to;
+
+        FuzzTask(long baseSeed, int from, int to) {
+            this.baseSeed = baseSeed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > SEQUENCES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                FuzzTask left = new FuzzTask(baseSeed, from, middle);
+                left.fork();
+                Result right = new FuzzTask(baseSeed, middle, to).compute();
+                return right.merge(left.join());
+            }
+            Result result = new Result();
+            for (int i = from; i < to && result.failure == null; i++) {
+                long seed = baseSeed + i;
+                Sequence sequence = new Sequence(seed);
+                try {
+                    sequence.run();
+                } catch (Throwable t) {
+                    result.failure = t;
+                    result.failedSeed = seed;
+                }
+                result.sequences++;
+                result.events += sequence.events;
+                result.nanos += sequence.nanos;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Pointers of a generated event, behaving like {@code MotionEvent} for invalid indices.
+     */
+    private static class FakeEvent implements DrawerGestureTracker.Pointers {
+        final int[] ids = new int[MAX_POINTERS + 1];
+        final float[] xs = new float[MAX_POINTERS + 1];
+        final float[] ys = new float[MAX_POINTERS + 1];
+        final long[] historyTimes = new long[MAX_HISTORY];
+        final float[][] historyXs = new float[MAX_HISTORY][MAX_POINTERS + 1];
+        int count;
+        int actionIndex;
+        long time;
+        int historySize;
+
+        @Override
+        public int getPointerCount() {
+            return count;
+        }
+
+        @Override
+        public int getPointerId(int pointerIndex) {
+            checkIndex(pointerIndex);
+            return ids[pointerIndex];
+        }
+
+        @Override
+        public int findPointerIndex(int pointerId) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == pointerId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public int getActionIndex() {
+            return actionIndex;
+        }
+
+        @Override
+        public float getX(int pointerIndex) {
+            checkIndex(pointerIndex);
+            return xs[pointerIndex];
+        }
+
+        @Override
+        public float getY(int pointerIndex) {
+            checkIndex(pointerIndex);
+            return ys[pointerIndex];
+        }
+
+        @Override
+        public long getEventTime() {
+            return time;
+        }
+
+        @Override
+        public int getHistorySize() {
+            return historySize;
+        }
+
+        @Override
+        public float getHistoricalX(int pointerIndex, int pos) {
+            checkIndex(pointerIndex);
+            checkPos(pos);
+            return historyXs[pos][pointerIndex];
+        }
+
+        @Override
+        public long getHistoricalEventTime(int pos) {
+            checkPos(pos);
+            return historyTimes[pos];
+        }
+
+        private void checkPos(int pos) {
+            if (pos < 0 || pos >= historySize) {
+                throw new IllegalArgumentException("historyPos out of range");
+            }
+        }
+
+        private void checkIndex(int pointerIndex) {
+            if (pointerIndex < 0 || pointerIndex >= count) {
+                throw new IllegalArgumentException("pointerIndex out of range");
+            }
+        }
+    }
+
+    /**
+     * Drawer moved by the tracker, mirroring what {@link SideNavigationView} does with the
+     * callbacks: moves are applied on the next frame and releases start a settle animation.
+     */
+    private static class FakeHost implements DrawerGestureTracker.Host {
+        final int contentWidth;
+        final int handleTop;
+        float transX;
+        DrawerGestureTracker tracker;
+        boolean framePending = false;
+        boolean settling = false;
+        float settleTarget;
+        int calls = 0;
+        boolean releasedOpen;
+        float releaseVelocity;
+
+        FakeHost(int contentWidth, float transX, int handleTop) {
+            this.contentWidth = contentWidth;
+            this.transX = transX;
+            this.handleTop = handleTop;
+        }
+
+        @Override
+        public float getTransX() {
+            calls++;
+            return transX;
+        }
+
+        @Override
+        public int getContentWidth() {
+            calls++;
+            return contentWidth;
+        }
+
+        @Override
+        public boolean isHandleHit(float x, float y) {
+            calls++;
+            float left = contentWidth + transX;
+            return x >= left && x < left + HANDLE_WIDTH && y >= handleTop && y < handleTop + HANDLE_HEIGHT;
+        }
+
+        @Override
+        public void setTransX(float transX) {
+            calls++;
+            checkRange(transX);
+            this.transX = transX;
+        }
+
+        @Override
+        public void onDragMove(boolean first) {
+            calls++;
+            if (!tracker.isDragging() || tracker.isDragPending()) {
+                throw new AssertionError("drag move outside of the drag");
+            }
+            if (first) {
+                settling = false;
+            }
+            framePending = true;
+        }
+
+        @Override
+        public void onHandleClick() {
+            calls++;
+            checkGestureOver();
+            settle(transX + contentWidth < contentWidth * 0.95f);
+        }
+
+        @Override
+        public void onRelease(boolean open, float velocityX) {
+            calls++;
+            checkGestureOver();
+            if (Float.isNaN(velocityX) || Float.isInfinite(velocityX)
+                            || Math.abs(velocityX) < DrawerGestureTracker.MIN_VELOCITY) {
+                throw new AssertionError("invalid release velocity " + velocityX);
+            }
+            releasedOpen = open;
+            releaseVelocity = velocityX;
+            settle(open);
+        }
+
+        void settle(boolean open) {
+            settling = true;
+            settleTarget = open ? 0f : -contentWidth;
+        }
+
+        /**
+         * Draws a frame: applies pending moves and advances the settle animation.
+         */
+        void frame() {
+            if (framePending) {
+                framePending = false;
+                tracker.applyPendingMove();
+            }
+            if (settling && !tracker.isDragging()) {
+                float step = contentWidth / 5f;
+                if (Math.abs(settleTarget - transX) <= step) {
+                    transX = settleTarget;
+                    settling = false;
+                } else {
+                    transX += settleTarget > transX ? step : -step;
+                }
+                checkRange(transX);
+            }
+        }
+
+        void checkRange(float transX) {
+            if (!(transX >= -contentWidth && transX <= 0f)) {
+                throw new AssertionError("translation " + transX + " out of range [" + -contentWidth + ", 0]");
+            }
+        }
+
+        void checkGestureOver() {
+            if (tracker.isDragging() || tracker.getActivePointerId() != DrawerGestureTracker.INVALID_POINTER_ID) {
+                throw new AssertionError("drawer released while the gesture is tracked");
+            }
+        }
+    }
+
+    /**
+     * Single generated gesture sequence.
+     */
+    private static class Sequence {
+        final Random random;
+        final FakeHost host;
+        final DrawerGestureTracker tracker;
+        final FakeEvent ev = new FakeEvent();
+        final int screenWidth;
+        final int screenHeight;
+        int nextPointerId = 0;
+        long lastEventTime = 0;
+        long events = 0;
+        long nanos = 0;
+
+        Sequence(long seed) {
+            random = new Random(seed);
+            int contentWidth = 1 + random.nextInt(1000);
+            float transX;
+            switch (random.nextInt(3)) {
+                case 0:
+                    transX = -contentWidth;
+                    break;
+                case 1:
+                    transX = 0f;
+                    break;
+                default:
+                    transX = -random.nextInt(contentWidth + 1);
+                    break;
+            }
+            screenWidth = contentWidth + HANDLE_WIDTH + random.nextInt(1000);
+            screenHeight = HANDLE_HEIGHT + random.nextInt(2000);
+            host = new FakeHost(contentWidth, transX, random.nextInt(screenHeight - HANDLE_HEIGHT + 1));
+            tracker = new DrawerGestureTracker(host, TOUCH_SLOP, ACTIVE_MARGIN);
+            host.tracker = tracker;
+        }
+
+        void run() {
+            int eventCount = 1 + random.nextInt(MAX_EVENTS_PER_SEQUENCE);
+            for (int i = 0; i < eventCount; i++) {
+                nextEvent();
+                while (random.nextInt(3) == 0) {
+                    host.frame();
+                }
+            }
+            if (ev.count > 0) {
+                // finish the last gesture
+                ev.time += random.nextInt(20);
+                dispatch(ACTION_CANCEL);
+            }
+            checkNotDragging("end of the sequence");
+        }
+
+        private void nextEvent() {
+            ev.time += random.nextInt(10) == 0 ? 0 : random.nextInt(40);
+            if (ev.count == 0) {
+                down();
+                return;
+            }
+            int choice = random.nextInt(100);
+            if (choice < 60) {
+                move();
+            } else if (choice < 70 && ev.count < MAX_POINTERS) {
+                pointerDown();
+            } else if (choice < 80 && ev.count > 1) {
+                pointerUp();
+            } else if (choice < 88) {
+                up();
+            } else if (choice < 92) {
+                dispatch(ACTION_CANCEL);
+                ev.count = 0;
+                checkNotDragging("ACTION_CANCEL");
+            } else if (choice < 95) {
+                // ACTION_UP and ACTION_CANCEL got lost, new gesture starts
+                ev.count = 0;
+                down();
+            } else if (choice < 98) {
+                // event without the pointers of the gesture
+                for (int i = 0; i < ev.count; i++) {
+                    ev.ids[i] = 100 + random.nextInt(100);
+                }
+                move();
+            } else {
+                // ACTION_UP with more pointers down
+                ev.actionIndex = random.nextInt(ev.count);
+                dispatch(ACTION_UP);
+                ev.count = 0;
+                checkNotDragging("malformed ACTION_UP");
+            }
+        }
+
+        private void down() {
+            nextPointerId = 0;
+            ev.count = 0;
+            addPointer();
+            ev.actionIndex = 0;
+            dispatch(ACTION_DOWN);
+        }
+
+        private void pointerDown() {
+            ev.actionIndex = addPointer();
+            dispatch(ACTION_POINTER_DOWN);
+        }
+
+        private void pointerUp() {
+            ev.actionIndex = random.nextInt(ev.count);
+            dispatch(ACTION_POINTER_UP);
+            removePointer(ev.actionIndex);
+        }
+
+        private void up() {
+            if (ev.count > 1) {
+                // remaining pointers go up one by one
+                pointerUp();
+                return;
+            }
+            ev.actionIndex = 0;
+            dispatch(ACTION_UP);
+            ev.count = 0;
+            checkNotDragging("ACTION_UP");
+        }
+
+        private void move() {
+            // samples batched since the last event, as on high rate touch screens
+            int historySize = random.nextInt(3) == 0 ? random.nextInt(MAX_HISTORY + 1) : 0;
+            for (int i = 0; i < ev.count; i++) {
+                int range = random.nextInt(20) == 0 ? 5000 : 60;
+                float dx = random.nextInt(2 * range + 1) - range;
+                for (int h = 0; h < historySize; h++) {
+                    ev.historyXs[h][i] = ev.xs[i] + dx * (h + 1) / (historySize + 1) + random.nextInt(5) - 2;
+                }
+                ev.xs[i] += dx;
+                ev.ys[i] += random.nextInt(2 * range + 1) - range;
+            }
+            for (int h = 0; h < historySize; h++) {
+                ev.historyTimes[h] = lastEventTime + (ev.time - lastEventTime) * (h + 1) / (historySize + 1);
+            }
+            ev.historySize = historySize;
+            dispatch(ACTION_MOVE);
+            ev.historySize = 0;
+        }
+
+        private int addPointer() {
+            int index = ev.count++;
+            ev.ids[index] = nextPointerId++;
+            switch (random.nextInt(4)) {
+                case 0:
+                    // edge of the screen
+                    ev.xs[index] = random.nextInt(2 * ACTIVE_MARGIN);
+                    break;
+                case 1:
+                    // handle of the drawer
+                    ev.xs[index] = host.contentWidth + host.transX + random.nextInt(HANDLE_WIDTH);
+                    ev.ys[index] = host.handleTop + random.nextInt(HANDLE_HEIGHT);
+                    return index;
+                default:
+                    ev.xs[index] = random.nextInt(screenWidth + 200) - 100;
+                    break;
+            }
+            ev.ys[index] = random.nextInt(screenHeight);
+            return index;
+        }
+
+        private void removePointer(int index) {
+            for (int i = index; i < ev.count - 1; i++) {
+                ev.ids[i] = ev.ids[i + 1];
+                ev.xs[i] = ev.xs[i + 1];
+                ev.ys[i] = ev.ys[i + 1];
+            }
+            ev.count--;
+        }
+
+        private void dispatch(int action) {
+            host.calls = 0;
+            long start = System.nanoTime();
+            switch (action) {
+                case ACTION_DOWN:
+                    tracker.onDown(ev, random.nextInt(4) != 0, random.nextBoolean());
+                    break;
+                case ACTION_MOVE:
+                    tracker.onMove(ev);
+                    break;
+                case ACTION_UP:
+                    tracker.onUp(ev);
+                    break;
+                case ACTION_CANCEL:
+                    tracker.onCancel();
+                    break;
+                case ACTION_POINTER_UP:
+                    tracker.onPointerUp(ev);
+                    break;
+                default:
+                    // ACTION_POINTER_DOWN is not handled by the drawer
+                    break;
+            }
+            nanos += System.nanoTime() - start;
+            events++;
+            lastEventTime = ev.time;
+            host.checkRange(host.transX);
+            if (host.calls > MAX_HOST_CALLS_PER_EVENT) {
+                throw new AssertionError(host.calls + " host calls for action " + action);
+            }
+        }
+
+        private void checkNotDragging(String after) {
+            if (tracker.isDragging() || tracker.getActivePointerId() != DrawerGestureTracker.INVALID_POINTER_ID) {
+                throw new AssertionError("drag not terminated after " + after);
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.devspark.sidenavigation.views;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.devspark.sidenavigation.views.TransformableDrawerLayout.AnimationListener;
+
+/**
+ * Steps {@link DrawerAnimator} with simulated frame times, without any view or display.
+ */
+public class DrawerAnimatorTest {
+    private static final long FRAME_MS = 16;
+
+    private static class RecordingListener implements AnimationListener {
+        int starts = 0;
+        int stops = 0;
+
+        @Override
+        public void onAnimationStart() {
+            starts++;
+        }
+
+        @Override
+        public void onAnimationStop() {
+            stops++;
+        }
+    }
+
+    @Test
+    public void durationIsDistanceOverVelocity() {
+        assertEquals(300, DrawerAnimator.getDurationFromVelocity(300f, 1f, 500));
+        assertEquals(150, DrawerAnimator.getDurationFromVelocity(-300f, 2f, 500));
+    }
+
+    @Test
+    public void durationIsLimited() {
+        assertEquals(500, DrawerAnimator.getDurationFromVelocity(300f, 0.5f, 500));
+        assertEquals(500, DrawerAnimator.getDurationFromVelocity(300f, 0f, 500));
+        // negative velocity of the fling towards the opposite side
+        assertEquals(200, DrawerAnimator.getDurationFromVelocity(300f, -1f, 200));
+        assertEquals(0, DrawerAnimator.getDurationFromVelocity(0f, 1f, 200));
+    }
+
+    @Test
+    public void animationEndsOnTheFrameReachingTheDuration() {
+        DrawerAnimator animator = new DrawerAnimator();
+        RecordingListener listener = new RecordingListener();
+        long time = 1000;
+        animator.start(-300f, 0f, 200, time, null, listener);
+
+        float lastValue = -300f;
+        while (animator.step(time)) {
+            assertTrue(animator.getValue() >= lastValue);
+            lastValue = animator.getValue();
+            time += FRAME_MS;
+        }
+
+        // frames at 0, 16, ..., 192 ms are running, the frame at 208 ms ends the animation
+        assertEquals(14, animator.getFrameCount());
+        assertEquals(0f, animator.getValue(), 0f);
+        assertFalse(animator.isRunning());
+        assertEquals(1, listener.starts);
+        assertEquals(1, listener.stops);
+    }
+
+    @Test
+    public void positionFollowsTheClock() {
+        DrawerAnimator animator = new DrawerAnimator();
+        animator.start(-300f, 0f, 300, 0, null, null);
+
+        assertTrue(animator.step(0));
+        assertEquals(-300f, animator.getValue(), 0.001f);
+        assertTrue(animator.step(100));
+        assertEquals(-200f, animator.getValue(), 0.001f);
+        // frames may be skipped, the position depends on the time only
+        assertTrue(animator.step(250));
+        assertEquals(-50f, animator.getValue(), 0.001f);
+        assertFalse(animator.step(1000));
+        assertEquals(0f, animator.getValue(), 0f);
+        assertEquals(4, animator.getFrameCount());
+    }
+
+    @Test
+    public void zeroDurationEndsOnTheFirstFrame() {
+        DrawerAnimator animator = new DrawerAnimator();
+        RecordingListener listener = new RecordingListener();
+        animator.start(0f, -250f, 0, 50, null, listener);
+
+        assertFalse(animator.step(50));
+        assertEquals(-250f, animator.getValue(), 0f);
+        assertEquals(1, animator.getFrameCount());
+        assertEquals(1, listener.starts);
+        assertEquals(1, listener.stops);
+    }
+
+    @Test
+    public void stepAfterTheEndDoesNothing() {
+        DrawerAnimator animator = new DrawerAnimator();
+        RecordingListener listener = new RecordingListener();
+        animator.start(0f, -250f, 100, 0, null, listener);
+        animator.step(100);
+
+        assertFalse(animator.step(200));
+        assertEquals(1, animator.getFrameCount());
+        assertEquals(1, listener.stops);
+    }
+
+    @Test
+    public void finishJumpsToTheEndAndNotifies() {
+        DrawerAnimator animator = new DrawerAnimator();
+        RecordingListener listener = new RecordingListener();
+        animator.start(-300f, 0f, 500, 0, null, listener);
+        animator.step(16);
+
+        animator.finish();
+        assertFalse(animator.isRunning());
+        assertEquals(0f, animator.getValue(), 0f);
+        assertEquals(1, listener.stops);
+
+        animator.finish();
+        assertEquals(1, listener.stops);
+    }
+
+    @Test
+    public void cancelStopsWithoutNotification() {
+        DrawerAnimator animator = new DrawerAnimator();
+        RecordingListener listener = new RecordingListener();
+        animator.start(-300f, 0f, 500, 0, null, listener);
+        animator.step(250);
+
+        animator.cancel();
+        assertFalse(animator.isRunning());
+        assertFalse(animator.step(500));
+        assertEquals(-150f, animator.getValue(), 0.001f);
+        assertEquals(0, listener.stops);
+    }
+
+    @Test
+    public void listenerMayStartNextAnimation() {
+        final DrawerAnimator animator = new DrawerAnimator();
+        animator.start(-300f, 0f, 100, 0, null, new AnimationListener() {
+            @Override
+            public void onAnimationStart() {
+            }
+
+            @Override
+            public void onAnimationStop() {
+                animator.start(0f, -300f, 100, 100, null, null);
+            }
+        });
+
+        assertTrue(animator.step(100));
+        assertEquals(-300f, animator.getToX(), 0f);
+        assertFalse(animator.step(200));
+        assertEquals(-300f, animator.getValue(), 0f);
+    }
+}
@@ -20,11 +20,17 @@ import android.app.Activity;
 import android.os.Bundle;
 import android.view.View;
 import android.view.View.OnClickListener;
+import android.view.ViewGroup.MarginLayoutParams;
 import android.widget.Button;
 import android.widget.ImageView;
 
+import com.devspark.sidenavigation.SideNavigationContentLayout;
 import com.devspark.sidenavigation.SideNavigationView;
+import com.devspark.sidenavigation.SideNavigationView.DockMode;
 import com.devspark.sidenavigation.SideNavigationView.Mode;
+import com.devspark.sidenavigation.SideNavigationView.OnDockChangeListener;
+import com.devspark.sidenavigation.SideNavigationView.OnContentViewCreatedListener;
+import com.devspark.sidenavigation.SideNavigationView.OnContentViewReleasedListener;
 
 /**
  * 
@@ -41,7 +47,6 @@ public class MainActivity extends Activity {
     private ImageView icon;
     private Button btnTest;
     private SideNavigationView sideNavigationView;
-    private View drawerMenu;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -57,16 +62,47 @@ public class MainActivity extends Activity {
             }
         });
         sideNavigationView = (SideNavigationView) findViewById(R.id.side_navigation_view);
-        drawerMenu = getLayoutInflater().inflate(R.layout.drawer_menu, null);
-        sideNavigationView.setContentView(drawerMenu);
+        sideNavigationView.setOnContentViewCreatedListener(new OnContentViewCreatedListener() {
 
-        drawerMenu.findViewById(R.id.btn_test).setOnClickListener(new OnClickListener() {
+            @Override
+            public void onContentViewCreated(View contentView) {
+                contentView.findViewById(R.id.btn_test).setOnClickListener(new OnClickListener() {
+
+                    @Override
+                    public void onClick(View v) {
+                        sideNavigationView.hideMenu();
+                    }
+                });
+            }
+        });
+        sideNavigationView.setOnContentViewReleasedListener(new OnContentViewReleasedListener() {
 
             @Override
-            public void onClick(View v) {
-                sideNavigationView.hideMenu();
+            public void onContentViewReleased(View contentView) {
+                // shared content outlives this activity, don't leak it
+                contentView.findViewById(R.id.btn_test).setOnClickListener(null);
             }
         });
+        // drawer content is shared between all the activities
+        sideNavigationView.setSharedContentView(R.layout.drawer_menu);
+
+        // keep the menu visible next to the content on wide screens
+        sideNavigationView.setOnDockChangeListener(new OnDockChangeListener() {
+
+            @Override
+            public void onDockChanged(boolean docked, int drawerWidth) {
+                View content = findViewById(R.id.main_content);
+                MarginLayoutParams params = (MarginLayoutParams) content.getLayoutParams();
+                params.leftMargin = drawerWidth;
+                content.setLayoutParams(params);
+                btnTest.setVisibility(docked ? View.GONE : View.VISIBLE);
+            }
+        });
+        sideNavigationView.setDockMode(DockMode.AUTO);
+
+        // edge gestures are watched in the content, so taps and vertical drags there still work
+        sideNavigationView.setDeferredEdgeInterception(true);
+        ((SideNavigationContentLayout) findViewById(R.id.main_content)).setSideNavigationView(sideNavigationView);
 
         if (getIntent().hasExtra(EXTRA_TITLE)) {
             String title = getIntent().getStringExtra(EXTRA_TITLE);